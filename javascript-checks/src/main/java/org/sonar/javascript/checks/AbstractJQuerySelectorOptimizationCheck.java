@@ -21,11 +21,14 @@ package org.sonar.javascript.checks;
 
 import org.sonar.javascript.tree.symbols.type.ObjectType;
 import org.sonar.javascript.tree.impl.SeparatedList;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.expression.CallExpressionTree;
 import org.sonar.plugins.javascript.api.tree.expression.LiteralTree;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
 
+@RequiresServices(FrontendService.TYPES)
 public abstract class AbstractJQuerySelectorOptimizationCheck extends BaseTreeVisitor {
 
   protected abstract void visitSelector(String selector, CallExpressionTree tree);
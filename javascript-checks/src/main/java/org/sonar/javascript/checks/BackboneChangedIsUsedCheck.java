@@ -22,6 +22,8 @@ package org.sonar.javascript.checks;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.symbols.Type;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.expression.AssignmentExpressionTree;
@@ -37,6 +39,7 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
     tags = {Tags.BACKBONE, Tags.BUG})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.DATA_RELIABILITY)
 @SqaleConstantRemediation("30min")
+@RequiresServices(FrontendService.TYPES)
 public class BackboneChangedIsUsedCheck extends BaseTreeVisitor {
 
   private static final String CHANGED = "changed";
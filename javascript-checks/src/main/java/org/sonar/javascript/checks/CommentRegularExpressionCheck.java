@@ -25,6 +25,7 @@ import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.javascript.checks.utils.SubscriptionBaseVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.Tree.Kind;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
@@ -87,19 +88,25 @@ public class CommentRegularExpressionCheck extends SubscriptionBaseVisitor {
   }
 
   @Override
-  public void visitNode(Tree tree) {
+  public void visitFile(Tree scriptTree) {
     if (pattern != null) {
-      SyntaxToken token = (SyntaxToken) tree;
-      for (SyntaxTrivia trivia : token.trivias()) {
-        if (pattern.matcher(trivia.text()).matches()) {
-          getContext().addIssue(this, trivia.line(), message);
-        }
+      for (Tree token : FileContexts.treesOfKind(getContext(), Kind.TOKEN)) {
+        checkComments((SyntaxToken) token);
+      }
+    }
+  }
+
+  private void checkComments(SyntaxToken token) {
+    for (SyntaxTrivia trivia : token.trivias()) {
+      if (pattern.matcher(trivia.text()).matches()) {
+        getContext().addIssue(this, trivia.line(), message);
       }
     }
   }
 
   @Override
   public List<Kind> nodesToVisit() {
-    return ImmutableList.of(Kind.TOKEN);
+    // tokens are taken from the context index
+    return ImmutableList.of();
   }
 }
@@ -28,6 +28,7 @@ import org.sonar.check.Rule;
 import org.sonar.javascript.lexer.JavaScriptKeyword;
 import org.sonar.javascript.tree.JavaScriptCommentAnalyser;
 import org.sonar.javascript.checks.utils.SubscriptionBaseVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.Tree.Kind;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
@@ -97,12 +98,18 @@ public class CommentedCodeCheck extends SubscriptionBaseVisitor {
 
   @Override
   public List<Kind> nodesToVisit() {
-    return ImmutableList.of(Kind.TOKEN);
+    // tokens are taken from the context index
+    return ImmutableList.of();
   }
 
   @Override
-  public void visitNode(Tree tree) {
-    SyntaxToken token = (SyntaxToken) tree;
+  public void visitFile(Tree scriptTree) {
+    for (Tree token : FileContexts.treesOfKind(getContext(), Kind.TOKEN)) {
+      checkComments((SyntaxToken) token);
+    }
+  }
+
+  private void checkComments(SyntaxToken token) {
     for (SyntaxTrivia trivia : token.trivias()) {
       if (!isJsDoc(trivia)) {
         String[] lines = regexpToDivideStringByLine.split(COMMENT_ANALYSER.getContents(trivia.text()));
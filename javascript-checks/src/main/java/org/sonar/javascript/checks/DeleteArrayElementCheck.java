@@ -22,6 +22,8 @@ package org.sonar.javascript.checks;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.symbols.Type;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.expression.BracketMemberExpressionTree;
@@ -40,6 +42,7 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.DATA_RELIABILITY)
 @SqaleConstantRemediation("5min")
 @ActivatedByDefault
+@RequiresServices(FrontendService.TYPES)
 public class DeleteArrayElementCheck extends BaseTreeVisitor {
 
   private static final String MESSAGE = "Remove this use of \"delete\".";
@@ -24,6 +24,8 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.tree.symbols.type.ObjectType;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.expression.CallExpressionTree;
 import org.sonar.plugins.javascript.api.tree.expression.DotMemberExpressionTree;
@@ -43,6 +45,7 @@ import java.util.List;
     tags = {Tags.JQUERY, Tags.OBSOLETE})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.SOFTWARE_RELATED_PORTABILITY)
 @SqaleConstantRemediation("20min")
+@RequiresServices(FrontendService.TYPES)
 public class DeprecatedJQueryAPICheck extends BaseTreeVisitor {
 
   private static final String MESSAGE = "Remove this use of \"%s\", which is deprecated.";
@@ -35,9 +35,13 @@ import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 @Rule(
   key = "S1871",
@@ -71,29 +75,36 @@ public class DuplicateBranchImplementationCheck extends BaseTreeVisitor {
 
   @Override
   public void visitSwitchStatement(SwitchStatementTree tree) {
-    for (int i = 0; i < tree.cases().size(); i++) {
-      SwitchClauseTree caseTree = tree.cases().get(i);
+    List<SwitchClauseTree> cases = tree.cases();
 
-      // FIXME martin: Don't check duplication for case with fall through on the next case.
-      if (caseTree.statements().isEmpty() || isCaseEndingWithoutJumpStmt(caseTree)) {
-        continue;
+    // Only cases with the same hash can be equivalent: candidate cases are looked up by the hash of their statements
+    ListMultimap<Integer, Integer> casesByHash = ArrayListMultimap.create();
+    for (int i = 0; i < cases.size(); i++) {
+      if (isComparable(cases.get(i))) {
+        casesByHash.put(SyntacticEquivalence.syntacticHash(cases.get(i).statements()), i);
       }
+    }
 
-      compareWithNextCases(tree, i, caseTree);
+    for (int i = 0; i < cases.size(); i++) {
+      if (isComparable(cases.get(i))) {
+        compareWithNextCases(cases, i, casesByHash);
+      }
     }
   }
 
-  private void compareWithNextCases(SwitchStatementTree tree, int indexCaseReference, SwitchClauseTree caseTree) {
-    for (int j = indexCaseReference + 1; j < tree.cases().size(); j++) {
-      SwitchClauseTree caseTreeToCompare = tree.cases().get(j);
+  private void compareWithNextCases(List<SwitchClauseTree> cases, int indexCaseReference, ListMultimap<Integer, Integer> casesByHash) {
+    SwitchClauseTree caseTree = cases.get(indexCaseReference);
+    List<StatementTree> statements = caseTree.statements();
+    List<StatementTree> statementsWithoutJump = statements.subList(0, statements.size() - 1);
 
-      // FIXME martin: Don't check duplication for case with fall through on the next case.
-      if (caseTreeToCompare.statements().isEmpty() || isCaseEndingWithoutJumpStmt(caseTreeToCompare)) {
-        continue;
-      }
+    SortedSet<Integer> candidates = new TreeSet<>(casesByHash.get(SyntacticEquivalence.syntacticHash(statements)));
+    candidates.addAll(casesByHash.get(SyntacticEquivalence.syntacticHash(statementsWithoutJump)));
+
+    for (int j : candidates.tailSet(indexCaseReference + 1)) {
+      SwitchClauseTree caseTreeToCompare = cases.get(j);
 
       // Remove the jump statement if comparing to default case
-      List<StatementTree> caseStatements = caseTreeToCompare.is(Kind.DEFAULT_CLAUSE) ? caseTree.statements().subList(0, caseTree.statements().size() - 1) : caseTree.statements();
+      List<StatementTree> caseStatements = caseTreeToCompare.is(Kind.DEFAULT_CLAUSE) ? statementsWithoutJump : statements;
 
       if (SyntacticEquivalence.areEquivalent(caseStatements, caseTreeToCompare.statements())) {
         getContext().addIssue(this,
@@ -105,6 +116,11 @@ public class DuplicateBranchImplementationCheck extends BaseTreeVisitor {
     }
   }
 
+  // FIXME martin: Don't check duplication for case with fall through on the next case.
+  private boolean isComparable(SwitchClauseTree caseTree) {
+    return !caseTree.statements().isEmpty() && !isCaseEndingWithoutJumpStmt(caseTree);
+  }
+
   private boolean isCaseEndingWithoutJumpStmt(SwitchClauseTree caseTree) {
     return caseTree.is(Kind.CASE_CLAUSE) && !isJumpStatement(Iterables.getLast(caseTree.statements()));
   }
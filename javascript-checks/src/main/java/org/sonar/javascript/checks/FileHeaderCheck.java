@@ -19,20 +19,16 @@
  */
 package org.sonar.javascript.checks;
 
-import com.google.common.io.Files;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
 import org.sonar.squidbridge.annotations.NoSqale;
 
-import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -43,8 +39,6 @@ import java.util.List;
 //@ActivatedByDefault
 @NoSqale
 public class FileHeaderCheck extends BaseTreeVisitor implements CharsetAwareVisitor {
-
-  private static final Logger LOG = LoggerFactory.getLogger(FileHeaderCheck.class);
   private static final String DEFAULT_HEADER_FORMAT = "";
 
   @RuleProperty(
@@ -54,28 +48,15 @@ public class FileHeaderCheck extends BaseTreeVisitor implements CharsetAwareVisi
     defaultValue = DEFAULT_HEADER_FORMAT)
   public String headerFormat = DEFAULT_HEADER_FORMAT;
 
-  private Charset charset;
   private String[] expectedLines;
-
-  @Override
-  public void setCharset(Charset charset) {
-    this.charset = charset;
-  }
+  private Charset charset;
 
   @Override
   public void scanFile(TreeVisitorContext context) {
     // TODO martin: should be done in a init method
     expectedLines = headerFormat.split("(?:\r)?\n|\r");
 
-    List<String> lines = Collections.emptyList();
-
-    try {
-      lines = Files.readLines(context.getFile(), charset);
-
-    } catch (IOException e) {
-      LOG.error("Unable to execute rule \"TabCharacter\" for file {} because of error: {}",
-        context.getFile().getName(), e);
-    }
+    List<String> lines = FileContexts.fileLines(context, charset);
 
     if (!matches(expectedLines, lines)) {
       context.addFileIssue(this, "Add or update the header of this file.");
@@ -103,4 +84,9 @@ public class FileHeaderCheck extends BaseTreeVisitor implements CharsetAwareVisi
     return result;
   }
 
+  @Override
+  public void setCharset(Charset charset) {
+    this.charset = charset;
+  }
+
 }
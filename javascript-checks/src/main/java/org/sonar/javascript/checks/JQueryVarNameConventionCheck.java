@@ -24,6 +24,8 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
 import org.sonar.plugins.javascript.api.symbols.Symbol;
 import org.sonar.plugins.javascript.api.symbols.SymbolModel;
@@ -43,6 +45,7 @@ import java.util.regex.Pattern;
     tags = {Tags.JQUERY, Tags.CONVENTION})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.UNDERSTANDABILITY)
 @SqaleConstantRemediation("5min")
+@RequiresServices(FrontendService.TYPES)
 public class JQueryVarNameConventionCheck extends BaseTreeVisitor {
 
   private static final String MESSAGE = "Rename variable \"%s\" to match the regular expression %s.";
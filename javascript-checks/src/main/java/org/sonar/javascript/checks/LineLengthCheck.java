@@ -26,6 +26,7 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.javascript.checks.utils.SubscriptionBaseVisitor;
 import org.sonar.javascript.tree.impl.lexical.InternalSyntaxToken;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
@@ -58,17 +59,19 @@ public class LineLengthCheck extends SubscriptionBaseVisitor {
 
   @Override
   public List<Tree.Kind> nodesToVisit() {
-    return ImmutableList.of(Tree.Kind.TOKEN);
+    // tokens are taken from the context index
+    return ImmutableList.of();
   }
 
   @Override
   public void visitFile(Tree tree) {
     previousToken = null;
+    for (Tree token : FileContexts.treesOfKind(getContext(), Tree.Kind.TOKEN)) {
+      checkToken((SyntaxToken) token);
+    }
   }
 
-  @Override
-  public void visitNode(Tree tree) {
-    SyntaxToken token = (SyntaxToken) tree;
+  private void checkToken(SyntaxToken token) {
 
     if (previousToken != null && (previousToken.line() != token.line() || ((InternalSyntaxToken) token).isEOF())) {
       int length = previousToken.column() + previousToken.text().length();
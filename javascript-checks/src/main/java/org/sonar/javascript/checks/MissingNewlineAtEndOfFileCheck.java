@@ -19,18 +19,17 @@
  */
 package org.sonar.javascript.checks;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
+import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
 
 @Rule(
   key = "MissingNewlineAtEndOfFile",
@@ -39,37 +38,30 @@ import java.io.RandomAccessFile;
   tags = {Tags.CONVENTION})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.READABILITY)
 @SqaleConstantRemediation("1min")
-public class MissingNewlineAtEndOfFileCheck extends BaseTreeVisitor {
+public class MissingNewlineAtEndOfFileCheck extends BaseTreeVisitor implements CharsetAwareVisitor {
 
-  private static final Logger LOG = LoggerFactory.getLogger(MissingNewlineAtEndOfFileCheck.class);
+  private Charset charset;
 
   @Override
   public void scanFile(TreeVisitorContext context) {
     super.scanFile(context);
 
-    try (RandomAccessFile randomAccessFile = new RandomAccessFile(getContext().getFile(), "r")) {
-
-      if (!endsWithNewline(randomAccessFile)) {
-        getContext().addFileIssue(this, "Add a new line at the end of this file.");
-      }
-
-    } catch (IOException e) {
-      LOG.error("Unable to execute rule \"MissingNewlineAtEndOfFile\" for file {} because of error: {}",
-        getContext().getFile().getName(), e);
+    if (!endsWithNewline(FileContexts.fileContent(getContext(), charset))) {
+      getContext().addFileIssue(this, "Add a new line at the end of this file.");
     }
   }
 
-  private static boolean endsWithNewline(RandomAccessFile randomAccessFile) throws IOException {
-    if (randomAccessFile.length() < 1) {
-      return false;
-    }
-    randomAccessFile.seek(randomAccessFile.length() - 1);
-    byte[] chars = new byte[1];
-    if (randomAccessFile.read(chars) < 1) {
+  private static boolean endsWithNewline(String content) {
+    if (content.isEmpty()) {
       return false;
     }
-    String ch = new String(chars);
-    return "\n".equals(ch) || "\r".equals(ch);
+    char lastChar = content.charAt(content.length() - 1);
+    return lastChar == '\n' || lastChar == '\r';
+  }
+
+  @Override
+  public void setCharset(Charset charset) {
+    this.charset = charset;
   }
 
 }
@@ -26,6 +26,8 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.javascript.tree.symbols.type.ObjectType;
 import org.sonar.javascript.tree.impl.SeparatedList;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.declaration.FunctionDeclarationTree;
@@ -57,6 +59,7 @@ import java.util.Map;
     coeff = "1min",
     offset = "2min",
     effortToFixDescription = "number of times selection is re-made.")
+@RequiresServices(FrontendService.TYPES)
 public class NotStoredSelectionCheck extends BaseTreeVisitor {
 
   private static final int DEFAULT = 2;
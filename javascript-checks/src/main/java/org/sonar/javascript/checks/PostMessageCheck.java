@@ -23,6 +23,8 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.checks.utils.CheckUtils;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.symbols.Type;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.expression.CallExpressionTree;
@@ -39,6 +41,7 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
     tags = {Tags.HTML5, Tags.SECURITY, Tags.OWASP_A3})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.SECURITY_FEATURES)
 @SqaleConstantRemediation("10min")
+@RequiresServices(FrontendService.TYPES)
 public class PostMessageCheck extends BaseTreeVisitor {
 
   private static final String POST_MESSAGE = "postMessage";
@@ -19,25 +19,20 @@
  */
 package org.sonar.javascript.checks;
 
-import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Collections;
 import java.util.List;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
-import com.google.common.io.Files;
-
 @Rule(
   key = "TabCharacter",
   name = "Tabulation characters should not be used",
@@ -48,22 +43,13 @@ import com.google.common.io.Files;
 @SqaleConstantRemediation("2min")
 public class TabCharacterCheck extends BaseTreeVisitor implements CharsetAwareVisitor {
 
-  private static final Logger LOG = LoggerFactory.getLogger(TabCharacterCheck.class);
   private Charset charset;
 
   @Override
   public void scanFile(TreeVisitorContext context) {
     super.scanFile(context);
 
-    List<String> lines = Collections.emptyList();
-
-    try {
-      lines = Files.readLines(getContext().getFile(), charset);
-
-    } catch (IOException e) {
-      LOG.error("Unable to execute rule \"TabCharacter\" for file {} because of error: {}",
-        getContext().getFile().getName(), e);
-    }
+    List<String> lines = FileContexts.fileLines(getContext(), charset);
 
     for (int i = 0; i < lines.size(); i++) {
       if (lines.get(i).contains("\t")) {
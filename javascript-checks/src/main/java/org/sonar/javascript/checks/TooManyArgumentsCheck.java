@@ -23,6 +23,8 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.tree.symbols.Scope;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.tree.declaration.FunctionTree;
 import org.sonar.javascript.tree.symbols.type.FunctionType;
 import org.sonar.javascript.checks.utils.CheckUtils;
@@ -49,6 +51,7 @@ import java.util.Set;
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.DATA_RELIABILITY)
 @SqaleConstantRemediation("10min")
 @ActivatedByDefault
+@RequiresServices(FrontendService.TYPES)
 public class TooManyArgumentsCheck extends BaseTreeVisitor {
 
   private static final String MESSAGE = "%s expects \"%s\" arguments, but \"%s\" were provided.";
@@ -19,21 +19,18 @@
  */
 package org.sonar.javascript.checks;
 
-import com.google.common.io.Files;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.lexer.JavaScriptLexer;
-import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
 import org.sonar.javascript.checks.utils.SubscriptionBaseVisitor;
+import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.squidbridge.annotations.ActivatedByDefault;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
-import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
@@ -49,14 +46,8 @@ import java.util.regex.Pattern;
 @SqaleConstantRemediation("1min")
 public class TrailingWhitespaceCheck extends SubscriptionBaseVisitor implements CharsetAwareVisitor {
 
-  private static final Logger LOG = LoggerFactory.getLogger(TrailingWhitespaceCheck.class);
   private Charset charset;
 
-  @Override
-  public void setCharset(Charset charset) {
-    this.charset = charset;
-  }
-
   @Override
   public List<Tree.Kind> nodesToVisit() {
     return Collections.emptyList();
@@ -64,15 +55,7 @@ public class TrailingWhitespaceCheck extends SubscriptionBaseVisitor implements
 
   @Override
   public void visitFile(Tree scriptTree) {
-    List<String> lines = Collections.emptyList();
-
-    try {
-      lines = Files.readLines(getContext().getFile(), charset);
-
-    } catch (IOException e) {
-      LOG.error("Unable to execute rule \"TrailingWhitespace\" for file {} because of error: {}",
-        getContext().getFile().getName(), e);
-    }
+    List<String> lines = FileContexts.fileLines(getContext(), charset);
 
     for (int i = 0; i < lines.size(); i++) {
       String line = lines.get(i);
@@ -84,4 +67,9 @@ public class TrailingWhitespaceCheck extends SubscriptionBaseVisitor implements
 
   }
 
+  @Override
+  public void setCharset(Charset charset) {
+    this.charset = charset;
+  }
+
 }
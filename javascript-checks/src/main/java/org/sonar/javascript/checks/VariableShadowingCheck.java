@@ -23,16 +23,17 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.tree.symbols.Scope;
+import org.sonar.javascript.tree.symbols.SymbolModelImpl;
 import org.sonar.plugins.javascript.api.symbols.Symbol;
 import org.sonar.plugins.javascript.api.symbols.Usage;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
-import org.sonar.plugins.javascript.api.symbols.SymbolModel;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
 import org.sonar.squidbridge.annotations.SqaleConstantRemediation;
 import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
 
 import java.util.Collection;
+import java.util.EnumSet;
 
 @Rule(
   key = "VariableShadowing",
@@ -53,10 +54,7 @@ public class VariableShadowingCheck extends BaseTreeVisitor {
   }
 
   private Collection<Symbol> getSymbols() {
-    SymbolModel symbolModel = getContext().getSymbolModel();
-    Collection<Symbol> symbols = symbolModel.getSymbols(Symbol.Kind.VARIABLE);
-    symbols.addAll(symbolModel.getSymbols(Symbol.Kind.PARAMETER));
-    return symbols;
+    return SymbolModelImpl.symbolsOfKinds(getContext().getSymbolModel(), EnumSet.of(Symbol.Kind.VARIABLE, Symbol.Kind.PARAMETER));
   }
 
   private void visitSymbol(Symbol symbol) {
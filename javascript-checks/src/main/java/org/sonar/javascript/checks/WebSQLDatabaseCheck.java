@@ -23,6 +23,8 @@ import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.check.Priority;
 import org.sonar.check.Rule;
 import org.sonar.javascript.tree.symbols.type.ObjectType.WebApiType;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.RequiresServices;
 import org.sonar.plugins.javascript.api.tree.Tree.Kind;
 import org.sonar.plugins.javascript.api.tree.expression.CallExpressionTree;
 import org.sonar.plugins.javascript.api.tree.expression.ExpressionTree;
@@ -39,6 +41,7 @@ import org.sonar.squidbridge.annotations.SqaleSubCharacteristic;
   tags = {Tags.HTML5, Tags.SECURITY, Tags.OWASP_A6, Tags.OWASP_A9})
 @SqaleSubCharacteristic(RulesDefinition.SubCharacteristics.SECURITY_FEATURES)
 @SqaleConstantRemediation("2h")
+@RequiresServices(FrontendService.TYPES)
 public class WebSQLDatabaseCheck extends BaseTreeVisitor {
 
   private static final String MESSAGE = "Convert this use of a Web SQL database to another technology";
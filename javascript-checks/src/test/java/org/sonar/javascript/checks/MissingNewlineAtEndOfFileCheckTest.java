@@ -19,6 +19,8 @@
  */
 package org.sonar.javascript.checks;
 
+import com.google.common.base.Charsets;
+import org.junit.Before;
 import org.junit.Test;
 import org.sonar.javascript.checks.utils.TreeCheckTest;
 import org.sonar.squidbridge.checks.CheckMessagesVerifier;
@@ -27,6 +29,11 @@ public class MissingNewlineAtEndOfFileCheckTest extends TreeCheckTest {
 
   MissingNewlineAtEndOfFileCheck check = new MissingNewlineAtEndOfFileCheck();
 
+  @Before
+  public void setUp(){
+    check.setCharset(Charsets.UTF_8);
+  }
+
   @Test
   public void test() {
     CheckMessagesVerifier.verify(getIssues("src/test/resources/checks/newlineAtEndOfFile.js", check))
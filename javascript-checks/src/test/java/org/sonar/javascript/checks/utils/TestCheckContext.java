@@ -24,10 +24,13 @@ import com.sonar.sslr.api.RecognitionException;
 import com.sonar.sslr.api.typed.ActionParser;
 import org.sonar.api.config.Settings;
 import org.sonar.javascript.parser.JavaScriptParserBuilder;
+import org.sonar.javascript.tree.SourceBuffer;
+import org.sonar.javascript.tree.TreeKindIndex;
 import org.sonar.javascript.tree.symbols.SymbolModelImpl;
 import org.sonar.javascript.checks.ParsingErrorCheck;
 import org.sonar.javascript.metrics.ComplexityVisitor;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.javascript.tree.visitors.FileContext;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
 import org.sonar.plugins.javascript.api.symbols.SymbolModel;
@@ -39,11 +42,13 @@ import java.io.File;
 import java.util.LinkedList;
 import java.util.List;
 
-public class TestCheckContext implements TreeVisitorContext {
+public class TestCheckContext implements TreeVisitorContext, FileContext {
   private ScriptTree tree = null;
   private File file;
+  private SourceBuffer source;
   private SymbolModel symbolModel = null;
   private ComplexityVisitor complexity;
+  private TreeKindIndex kindIndex = null;
   private Settings settings;
   protected static final ActionParser<Tree> p = JavaScriptParserBuilder.createParser(Charsets.UTF_8);
 
@@ -52,11 +57,14 @@ public class TestCheckContext implements TreeVisitorContext {
   public TestCheckContext(File file, Settings settings) {
     RecognitionException parseException = null;
     this.file = file;
+    this.source = SourceBuffer.read(file, Charsets.UTF_8);
     this.complexity = new ComplexityVisitor();
     this.settings = settings;
     try {
       this.tree = (ScriptTree) p.parse(file);
       this.symbolModel = SymbolModelImpl.create(tree, null, null, null);
+      this.complexity.memoize(tree);
+      this.kindIndex = new TreeKindIndex(tree);
     } catch (RecognitionException e) {
       parseException = e;
     }
@@ -101,6 +109,16 @@ public class TestCheckContext implements TreeVisitorContext {
     return file;
   }
 
+  @Override
+  public String getFileContent() {
+    return source.content();
+  }
+
+  @Override
+  public List<String> getFileLines() {
+    return source.lines();
+  }
+
   private void commonAddIssue(JavaScriptCheck check, int line, String message, double cost) {
     CheckMessage issue = new CheckMessage(check, message);
     if (cost > 0) {
@@ -131,6 +149,11 @@ public class TestCheckContext implements TreeVisitorContext {
     return complexity.getComplexity(tree);
   }
 
+  @Override
+  public List<Tree> getTreesOfKind(Tree.Kind kind) {
+    return kindIndex.nodes(kind);
+  }
+
   public List<CheckMessage> getIssues() {
     return issues;
   }
@@ -28,6 +28,7 @@ import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.source.Highlightable;
 import org.sonar.api.source.Highlightable.HighlightingBuilder;
 import org.sonar.javascript.lexer.JavaScriptKeyword;
+import org.sonar.javascript.tree.visitors.FileContexts;
 import org.sonar.javascript.tree.visitors.SubscriptionAstTreeVisitor;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
 import org.sonar.javascript.tree.impl.expression.LiteralTreeImpl;
@@ -67,8 +68,9 @@ public class HighlighterVisitor extends SubscriptionAstTreeVisitor {
 
   @Override
   public void scanFile(TreeVisitorContext context) {
-    highlighting = initHighlighting(context.getFile());
+    highlighting = newHighlighting(context.getFile());
     if (highlighting != null) {
+      offsets = sourceFileOffsets(context);
       super.scanFile(context);
       stopHighlighting();
     }
@@ -118,8 +120,11 @@ public class HighlighterVisitor extends SubscriptionAstTreeVisitor {
     }
   }
 
+  /**
+   * Highlights the file through its {@link Highlightable} by default: override to collect the highlighting elsewhere.
+   */
   @Nullable
-  private HighlightingBuilder initHighlighting(File file) {
+  protected HighlightingBuilder newHighlighting(File file) {
     InputFile inputFile = fileSystem.inputFile(fileSystem.predicates().is(file));
     if (inputFile == null) {
       throw new IllegalArgumentException("Cannot get " + Highlightable.class.getCanonicalName() + " for a null file");
@@ -129,13 +134,18 @@ public class HighlighterVisitor extends SubscriptionAstTreeVisitor {
       LOG.warn("Could not get " + Highlightable.class.getCanonicalName() + " for " + inputFile.file());
       return null;
     } else {
-      highlighting = highlightable.newHighlighting();
-      offsets = new SourceFileOffsets(file, fileSystem.encoding());
-      return this.highlighting;
+      return highlightable.newHighlighting();
     }
   }
 
-  private void highlight(int startOffset, int endOffset, String code) {
+  /**
+   * Computes the offsets of the file content by default: override to share offsets which are already known for the file.
+   */
+  protected SourceFileOffsets sourceFileOffsets(TreeVisitorContext context) {
+    return new SourceFileOffsets(FileContexts.fileContent(context, fileSystem.encoding()));
+  }
+
+  protected void highlight(int startOffset, int endOffset, String code) {
     if (endOffset > startOffset) {
       highlighting.highlight(startOffset, endOffset, code);
     }
@@ -19,41 +19,28 @@
  */
 package org.sonar.javascript.highlighter;
 
-import com.google.common.collect.Lists;
-import com.google.common.io.Files;
 import com.sonar.sslr.api.Token;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Table of the offsets at which the lines of a file start, to convert line and column positions into offsets and back.
+ * It is built once per file by {@link org.sonar.javascript.tree.SourceBuffer#offsets()} and shared by the symbol and syntax highlighting.
+ */
 public class SourceFileOffsets {
   private final int length;
-  private final List<Integer> lineStartOffsets = Lists.newArrayList();
+  private final int[] lineStartOffsets;
 
   public SourceFileOffsets(String content) {
     this.length = content.length();
-    initOffsets(content);
-  }
-
-  public SourceFileOffsets(File file, Charset charset) {
-    this(fileContent(file, charset));
-  }
-
-  private static String fileContent(File file, Charset charset) {
-    String fileContent;
-    try {
-      fileContent = Files.toString(file, charset);
-    } catch (IOException e) {
-      throw new IllegalStateException("Could not read " + file, e);
-    }
-    return fileContent;
+    this.lineStartOffsets = lineStartOffsets(content);
   }
 
-  private void initOffsets(String toParse) {
-    lineStartOffsets.add(0);
+  private static int[] lineStartOffsets(String toParse) {
+    int length = toParse.length();
+    int[] offsets = new int[16];
+    int lines = 1;
     int i = 0;
     while (i < length) {
       if (toParse.charAt(i) == '\n' || toParse.charAt(i) == '\r') {
@@ -62,22 +49,53 @@ public class SourceFileOffsets {
           nextLineStartOffset = i + 2;
           i++;
         }
-        lineStartOffsets.add(nextLineStartOffset);
+        if (lines == offsets.length) {
+          offsets = Arrays.copyOf(offsets, lines * 2);
+        }
+        offsets[lines] = nextLineStartOffset;
+        lines++;
       }
       i++;
     }
+    return Arrays.copyOf(offsets, lines);
+  }
+
+  public int linesCount() {
+    return lineStartOffsets.length;
+  }
+
+  /**
+   * @param line line number, starting at 1
+   */
+  public int lineStartOffset(int line) {
+    return lineStartOffsets[line - 1];
+  }
+
+  /**
+   * @return the line, starting at 1, of the character at the given offset
+   */
+  public int line(int offset) {
+    if (offset < 0 || offset > length) {
+      throw new IndexOutOfBoundsException("Offset " + offset + " is out of the file, whose length is " + length);
+    }
+    int index = Arrays.binarySearch(lineStartOffsets, offset);
+    // when the offset is not a line start, binarySearch returns -(index of the next line start) - 1
+    return index >= 0 ? (index + 1) : -(index + 1);
+  }
+
+  /**
+   * @return the column, starting at 0, of the character at the given offset
+   */
+  public int column(int offset) {
+    return offset - lineStartOffset(line(offset));
   }
 
   public int startOffset(Token token) {
-    int lineStartOffset = lineStartOffsets.get(token.getLine() - 1);
-    int column = token.getColumn();
-    return lineStartOffset + column;
+    return lineStartOffset(token.getLine()) + token.getColumn();
   }
 
   public int startOffset(SyntaxToken token) {
-    int lineStartOffset = lineStartOffsets.get(token.line() - 1);
-    int column = token.column();
-    return lineStartOffset + column;
+    return lineStartOffset(token.line()) + token.column();
   }
 
   public int endOffset(Token token) {
@@ -0,0 +1,560 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.lexer;
+
+import com.google.common.collect.ImmutableMap;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass scanner producing the same tokens as {@link JavaScriptLexer}: same types, values and positions, and the same
+ * choice between regular expression and division as {@link JavaScriptRegexpChannel#guessNextIsRegexp(String)}.
+ * Instead of trying regular expression channels one after the other, the kind of token is chosen from its first character,
+ * and punctuators are matched with a trie.
+ * <p>
+ * Comments are skipped: unlike the ones of the lexer, tokens have no trivia. Thread-safe.
+ */
+public final class JavaScriptScanner {
+
+  private static final Map<String, JavaScriptKeyword> KEYWORDS = keywords();
+  private static final PunctuatorNode PUNCTUATORS = punctuatorTrie();
+
+  private JavaScriptScanner() {
+  }
+
+  /**
+   * @return the tokens of the source, ending with an EOF token like the ones of the lexer
+   */
+  public static List<Token> scan(String source, URI uri) {
+    return new Scan(source, uri).run();
+  }
+
+  private static final class Scan {
+
+    private final String source;
+    private final int length;
+    private final URI uri;
+    private final List<Token> tokens = new ArrayList<>();
+
+    private int pos = 0;
+    private int line = 1;
+    private int column = 0;
+
+    Scan(String source, URI uri) {
+      this.source = source;
+      this.length = source.length();
+      this.uri = uri;
+    }
+
+    List<Token> run() {
+      while (pos < length) {
+        char c = source.charAt(pos);
+        if (isWhitespace(c)) {
+          int end = pos + 1;
+          while (end < length && isWhitespace(source.charAt(end))) {
+            end++;
+          }
+          moveTo(end);
+        } else if (!scanComment(c)) {
+          scanToken(c);
+        }
+      }
+      addToken(GenericTokenType.EOF, "EOF", pos);
+      return tokens;
+    }
+
+    private boolean scanComment(char c) {
+      int end = -1;
+      if (c == '/') {
+        end = commentEnd(pos);
+      } else if (c == '<' && source.startsWith("<!--", pos)) {
+        end = lineEnd(pos + 4);
+      }
+      if (end >= 0) {
+        moveTo(end);
+        return true;
+      }
+      return false;
+    }
+
+    private void scanToken(char c) {
+      int end;
+      switch (c) {
+        case '"':
+        case '\'':
+          end = stringEnd(pos, c);
+          if (end >= 0) {
+            addToken(GenericTokenType.LITERAL, end);
+            return;
+          }
+          break;
+        case '/':
+          if (tokens.isEmpty() || JavaScriptRegexpChannel.guessNextIsRegexp(tokens.get(tokens.size() - 1).getValue())) {
+            end = regexpEnd(pos);
+            if (end >= 0) {
+              addToken(JavaScriptTokenType.REGULAR_EXPRESSION_LITERAL, end);
+              return;
+            }
+          }
+          break;
+        case '.':
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+          end = numericEnd(pos);
+          if (end >= 0) {
+            addToken(JavaScriptTokenType.NUMERIC_LITERAL, end);
+            return;
+          }
+          break;
+        default:
+          end = identifierEnd(pos);
+          if (end >= 0) {
+            String value = source.substring(pos, end);
+            JavaScriptKeyword keyword = KEYWORDS.get(value);
+            addToken(keyword == null ? GenericTokenType.IDENTIFIER : keyword, value, end);
+            return;
+          }
+          break;
+      }
+
+      JavaScriptPunctuator punctuator = longestPunctuator(pos);
+      if (punctuator != null) {
+        addToken(punctuator, punctuator.getValue(), pos + punctuator.getValue().length());
+      } else {
+        addToken(GenericTokenType.UNKNOWN_CHAR, pos + 1);
+      }
+    }
+
+    private void addToken(TokenType type, int end) {
+      addToken(type, source.substring(pos, end), end);
+    }
+
+    private void addToken(TokenType type, String value, int end) {
+      tokens.add(Token.builder()
+        .setType(type)
+        .setValueAndOriginalValue(value)
+        .setURI(uri)
+        .setLine(line)
+        .setColumn(column)
+        .build());
+      moveTo(end);
+    }
+
+    /**
+     * Moves forward, counting lines and columns like the code reader of the lexer
+     */
+    private void moveTo(int end) {
+      for (int i = pos; i < end; i++) {
+        char c = source.charAt(i);
+        if (c == '\n' || (c == '\r' && (i + 1 >= length || source.charAt(i + 1) != '\n'))) {
+          line++;
+          column = 0;
+        } else {
+          column++;
+        }
+      }
+      pos = end;
+    }
+
+    /**
+     * {@link JavaScriptLexer#COMMENT}
+     */
+    private int commentEnd(int start) {
+      if (start + 1 < length) {
+        char next = source.charAt(start + 1);
+        if (next == '/') {
+          return lineEnd(start + 2);
+        } else if (next == '*') {
+          int end = source.indexOf("*/", start + 2);
+          return end < 0 ? -1 : (end + 2);
+        }
+      }
+      return -1;
+    }
+
+    private int lineEnd(int start) {
+      int i = start;
+      while (i < length && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * {@link JavaScriptLexer#LITERAL}: escaped characters can be line terminators
+     */
+    private int stringEnd(int start, char quote) {
+      int i = start + 1;
+      while (i < length) {
+        char c = source.charAt(i);
+        if (c == quote) {
+          return i + 1;
+        } else if (c == '\\') {
+          if (i + 1 >= length) {
+            return -1;
+          }
+          i += 2;
+        } else {
+          i++;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * {@link JavaScriptRegexpChannel#REGULAR_EXPRESSION}
+     */
+    private int regexpEnd(int start) {
+      int i = start + 1;
+      if (i < length && (source.charAt(i) == '*' || source.charAt(i) == '/')) {
+        return -1;
+      }
+      while (true) {
+        if (i >= length) {
+          return -1;
+        }
+        char c = source.charAt(i);
+        if (c == '/') {
+          i++;
+          break;
+        } else if (c == '\\') {
+          i = backslashSequenceEnd(i);
+        } else if (c == '[') {
+          i = classEnd(i);
+        } else if (isLineTerminator(c)) {
+          return -1;
+        } else {
+          i++;
+        }
+        if (i < 0) {
+          return -1;
+        }
+      }
+
+      while (i < length) {
+        int codePoint = source.codePointAt(i);
+        if (!Character.isJavaIdentifierPart(codePoint)) {
+          break;
+        }
+        i += Character.charCount(codePoint);
+      }
+      return i;
+    }
+
+    private int classEnd(int start) {
+      int i = start + 1;
+      while (i >= 0 && i < length) {
+        char c = source.charAt(i);
+        if (c == ']') {
+          return i + 1;
+        } else if (c == '\\') {
+          i = backslashSequenceEnd(i);
+        } else if (isLineTerminator(c)) {
+          return -1;
+        } else {
+          i++;
+        }
+      }
+      return -1;
+    }
+
+    private int backslashSequenceEnd(int start) {
+      if (start + 1 < length && !isLineTerminator(source.charAt(start + 1))) {
+        return start + 2;
+      }
+      return -1;
+    }
+
+    /**
+     * {@link JavaScriptLexer#NUMERIC_LITERAL}: alternatives are tried in the same order, the first one matching wins
+     */
+    private int numericEnd(int start) {
+      int digitsEnd = digitsEnd(start);
+      boolean hasDigits = digitsEnd > start;
+
+      // decimal: digits, dot, optional digits
+      if (hasDigits && charAt(digitsEnd) == '.') {
+        return floatSuffixEnd(optional(exponentEnd(digitsEnd(digitsEnd + 1), 'e', 'E'), digitsEnd(digitsEnd + 1)));
+      }
+      // decimal: dot, digits
+      if (charAt(start) == '.') {
+        int fractionEnd = digitsEnd(start + 1);
+        if (fractionEnd > start + 1) {
+          return floatSuffixEnd(optional(exponentEnd(fractionEnd, 'e', 'E'), fractionEnd));
+        }
+        return -1;
+      }
+      if (hasDigits && isFloatSuffix(charAt(digitsEnd))) {
+        return digitsEnd + 1;
+      }
+      if (hasDigits && exponentEnd(digitsEnd, 'e', 'E') >= 0) {
+        return floatSuffixEnd(exponentEnd(digitsEnd, 'e', 'E'));
+      }
+
+      int hexEnd = charAt(start) == '0' && (charAt(start + 1) == 'x' || charAt(start + 1) == 'X') ? hexDigitsEnd(start + 2) : -1;
+      if (hexEnd > start + 2) {
+        if (charAt(hexEnd) == '.') {
+          int fractionEnd = hexEnd + 1;
+          while (isHexDigit(charAt(fractionEnd)) || charAt(fractionEnd) == '_') {
+            fractionEnd++;
+          }
+          return floatSuffixEnd(optional(exponentEnd(fractionEnd, 'p', 'P'), fractionEnd));
+        }
+        if (exponentEnd(hexEnd, 'p', 'P') >= 0) {
+          return floatSuffixEnd(exponentEnd(hexEnd, 'p', 'P'));
+        }
+        return intSuffixEnd(hexEnd);
+      }
+
+      if (charAt(start) == '0' && (charAt(start + 1) == 'b' || charAt(start + 1) == 'B')) {
+        int binaryEnd = start + 2;
+        while (charAt(binaryEnd) == '0' || charAt(binaryEnd) == '1') {
+          binaryEnd++;
+        }
+        if (binaryEnd > start + 2) {
+          return intSuffixEnd(binaryEnd);
+        }
+      }
+
+      return hasDigits ? intSuffixEnd(digitsEnd) : -1;
+    }
+
+    /**
+     * Exponent with the given marker, followed by an optional sign and by digits or underscores. The sign is possessive:
+     * there is no exponent if no digit follows it.
+     */
+    private int exponentEnd(int start, char marker, char upperCaseMarker) {
+      if (charAt(start) != marker && charAt(start) != upperCaseMarker) {
+        return -1;
+      }
+      int i = start + 1;
+      if (charAt(i) == '+' || charAt(i) == '-') {
+        i++;
+      }
+      int digitsStart = i;
+      while (isDigit(charAt(i)) || charAt(i) == '_') {
+        i++;
+      }
+      return i > digitsStart ? i : -1;
+    }
+
+    private static int optional(int end, int defaultEnd) {
+      return end >= 0 ? end : defaultEnd;
+    }
+
+    private int floatSuffixEnd(int end) {
+      return isFloatSuffix(charAt(end)) ? (end + 1) : end;
+    }
+
+    private int intSuffixEnd(int end) {
+      return charAt(end) == 'l' || charAt(end) == 'L' ? (end + 1) : end;
+    }
+
+    private int digitsEnd(int start) {
+      int i = start;
+      while (isDigit(charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    private int hexDigitsEnd(int start) {
+      int i = start;
+      while (isHexDigit(charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * {@link JavaScriptLexer#IDENTIFIER}
+     */
+    private int identifierEnd(int start) {
+      int i = identifierCharEnd(start, true);
+      if (i < 0) {
+        return -1;
+      }
+      int next = identifierCharEnd(i, false);
+      while (next >= 0) {
+        i = next;
+        next = identifierCharEnd(i, false);
+      }
+      return i;
+    }
+
+    private int identifierCharEnd(int start, boolean first) {
+      if (start >= length) {
+        return -1;
+      }
+      char c = source.charAt(start);
+      if (c == '\\') {
+        if (charAt(start + 1) == 'u' && isHexDigit(charAt(start + 2)) && isHexDigit(charAt(start + 3))
+          && isHexDigit(charAt(start + 4)) && isHexDigit(charAt(start + 5))) {
+          return start + 6;
+        }
+        return -1;
+      }
+      int codePoint = source.codePointAt(start);
+      if (isIdentifierStart(codePoint) || (!first && isIdentifierPart(codePoint))) {
+        return start + Character.charCount(codePoint);
+      }
+      return -1;
+    }
+
+    private JavaScriptPunctuator longestPunctuator(int start) {
+      JavaScriptPunctuator result = null;
+      PunctuatorNode node = PUNCTUATORS;
+      int i = start;
+      while (i < length) {
+        node = node.next(source.charAt(i));
+        if (node == null) {
+          break;
+        }
+        if (node.punctuator != null) {
+          result = node.punctuator;
+        }
+        i++;
+      }
+      return result;
+    }
+
+    /**
+     * @return the character at the given index, 0 after the end of the source
+     */
+    private char charAt(int index) {
+      return index < length ? source.charAt(index) : 0;
+    }
+
+  }
+
+  /**
+   * {@link JavaScriptLexer#WHITESPACE} and {@link JavaScriptLexer#LINE_TERMINATOR}
+   */
+  private static boolean isWhitespace(char c) {
+    switch (c) {
+      case '\t':
+      case '\u000B':
+      case '\f':
+      case ' ':
+      case '\u00A0':
+      case '\uFEFF':
+        return true;
+      default:
+        return isLineTerminator(c) || Character.getType(c) == Character.SPACE_SEPARATOR;
+    }
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isFloatSuffix(char c) {
+    return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+  }
+
+  private static boolean isIdentifierStart(int codePoint) {
+    if (codePoint == '$' || codePoint == '_') {
+      return true;
+    }
+    switch (Character.getType(codePoint)) {
+      case Character.UPPERCASE_LETTER:
+      case Character.LOWERCASE_LETTER:
+      case Character.TITLECASE_LETTER:
+      case Character.MODIFIER_LETTER:
+      case Character.OTHER_LETTER:
+      case Character.LETTER_NUMBER:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isIdentifierPart(int codePoint) {
+    switch (Character.getType(codePoint)) {
+      case Character.NON_SPACING_MARK:
+      case Character.COMBINING_SPACING_MARK:
+      case Character.DECIMAL_DIGIT_NUMBER:
+      case Character.CONNECTOR_PUNCTUATION:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static Map<String, JavaScriptKeyword> keywords() {
+    ImmutableMap.Builder<String, JavaScriptKeyword> keywords = ImmutableMap.builder();
+    for (JavaScriptKeyword keyword : JavaScriptKeyword.values()) {
+      keywords.put(keyword.getValue(), keyword);
+    }
+    return keywords.build();
+  }
+
+  private static PunctuatorNode punctuatorTrie() {
+    PunctuatorNode root = new PunctuatorNode();
+    for (JavaScriptPunctuator punctuator : JavaScriptPunctuator.values()) {
+      PunctuatorNode node = root;
+      for (char c : punctuator.getValue().toCharArray()) {
+        if (node.children[c] == null) {
+          node.children[c] = new PunctuatorNode();
+        }
+        node = node.children[c];
+      }
+      node.punctuator = punctuator;
+    }
+    return root;
+  }
+
+  /**
+   * Node of a trie of punctuators, which are all made of ASCII characters
+   */
+  private static final class PunctuatorNode {
+
+    private final PunctuatorNode[] children = new PunctuatorNode[128];
+    private JavaScriptPunctuator punctuator = null;
+
+    PunctuatorNode next(char c) {
+      return c < children.length ? children[c] : null;
+    }
+
+  }
+
+}
@@ -22,16 +22,38 @@ package org.sonar.javascript.metrics;
 import com.google.common.collect.ImmutableList;
 import org.sonar.plugins.javascript.api.tree.declaration.FunctionTree;
 import org.sonar.javascript.tree.visitors.SubscriptionAstTreeVisitor;
+import org.sonar.javascript.tree.visitors.TreeWalker;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.Tree.Kind;
 import org.sonar.plugins.javascript.api.tree.declaration.MethodDeclarationTree;
 import org.sonar.plugins.javascript.api.tree.statement.StatementTree;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ComplexityVisitor extends SubscriptionAstTreeVisitor {
 
+  // trees whose complexity is kept by memoize: script, functions and classes
+  private static final Set<Kind> MEMOIZED_KINDS = EnumSet.of(
+    Kind.SCRIPT,
+    Kind.FUNCTION_DECLARATION,
+    Kind.FUNCTION_EXPRESSION,
+    Kind.METHOD,
+    Kind.GENERATOR_METHOD,
+    Kind.GENERATOR_FUNCTION_EXPRESSION,
+    Kind.GENERATOR_DECLARATION,
+    Kind.SET_METHOD,
+    Kind.GET_METHOD,
+    Kind.ARROW_FUNCTION,
+    Kind.CLASS_DECLARATION,
+    Kind.CLASS_EXPRESSION);
+
+  private final Map<Tree, Integer> memoized = new IdentityHashMap<>();
   private int complexity;
 
   @Override
@@ -66,21 +88,78 @@ public class ComplexityVisitor extends SubscriptionAstTreeVisitor {
     );
   }
 
+  /**
+   * Returns the complexity of the tree: from the result of {@link #memoize(Tree)} for the script, functions and classes it has been
+   * called with, by scanning the tree otherwise.
+   */
   public int getComplexity(Tree tree) {
+    Integer memoizedComplexity = memoized.get(tree);
+    if (memoizedComplexity != null) {
+      return memoizedComplexity;
+    }
     this.complexity = 0;
     scanTree(tree);
     return complexity;
   }
 
+  /**
+   * Computes in a single post-order pass the complexity of the top tree and of all the functions and classes it contains,
+   * so that nested functions are not scanned again each time their complexity or the one of an enclosing function is requested.
+   */
+  public void memoize(Tree topTree) {
+    memoized.clear();
+    final Set<Kind> subscribed = subscribedKinds();
+
+    TreeWalker.walk(topTree, new TreeWalker.Listener() {
+      // complexity accumulated so far for each tree on the path from the top tree
+      private int[] sums = new int[64];
+      private int depth = 0;
+
+      @Override
+      public void enter(Tree tree) {
+        if (depth == sums.length) {
+          sums = Arrays.copyOf(sums, depth * 2);
+        }
+        sums[depth] = subscribed.contains(((JavaScriptTree) tree).getKind()) ? nodeComplexity(tree) : 0;
+        depth++;
+      }
+
+      @Override
+      public void leave(Tree tree) {
+        depth--;
+        int result = sums[depth];
+        if (depth > 0) {
+          sums[depth - 1] += result;
+        }
+        if (MEMOIZED_KINDS.contains(((JavaScriptTree) tree).getKind())) {
+          memoized.put(tree, result);
+        }
+      }
+    });
+  }
+
+  /**
+   * Forgets the complexities computed by {@link #memoize(Tree)}, whose keys would otherwise keep the whole tree of the file reachable.
+   */
+  public void clearMemoized() {
+    memoized.clear();
+  }
+
   @Override
   public void visitNode(Tree tree) {
+    complexity += nodeComplexity(tree);
+  }
+
+  private static int nodeComplexity(Tree tree) {
+    int result = 0;
     if (isStatementWithLastReturn(tree)) {
-      complexity--;
+      result--;
     }
 
     if (!tree.is(Kind.SET_METHOD, Kind.GET_METHOD)) {
-      complexity++;
+      result++;
     }
+    return result;
   }
 
   /**
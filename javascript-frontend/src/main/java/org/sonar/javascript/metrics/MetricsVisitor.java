@@ -26,6 +26,7 @@ import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.PersistenceMode;
 import org.sonar.api.measures.RangeDistributionBuilder;
@@ -131,10 +132,10 @@ public class MetricsVisitor extends SubscriptionAstTreeVisitor {
     saveMetricOnFile(CoreMetrics.COMPLEXITY_IN_CLASSES, classComplexity);
     saveMetricOnFile(CoreMetrics.COMPLEXITY_IN_FUNCTIONS, functionComplexity);
 
-    sensorContext.saveMeasure(inputFile, functionComplexityDistribution.build(true).setPersistenceMode(PersistenceMode.MEMORY));
+    saveMeasureOnFile(functionComplexityDistribution.build(true).setPersistenceMode(PersistenceMode.MEMORY));
 
     fileComplexityDistribution.add(fileComplexity);
-    sensorContext.saveMeasure(inputFile, fileComplexityDistribution.build().setPersistenceMode(PersistenceMode.MEMORY));
+    saveMeasureOnFile(fileComplexityDistribution.build().setPersistenceMode(PersistenceMode.MEMORY));
   }
 
   private void saveLineMetrics(TreeVisitorContext context) {
@@ -149,8 +150,15 @@ public class MetricsVisitor extends SubscriptionAstTreeVisitor {
     Set<Integer> commentLines = commentVisitor.getCommentLines();
 
     saveMetricOnFile(CoreMetrics.COMMENT_LINES, commentVisitor.getCommentLineNumber());
-    noSonarFilter.addComponent(sensorContext.getResource(inputFile).getEffectiveKey(), commentVisitor.noSonarLines());
+    saveNoSonarLines(commentVisitor.noSonarLines());
+    saveLinesData(linesNumber, linesOfCode, commentLines);
+  }
+
+  protected void saveNoSonarLines(Set<Integer> noSonarLines) {
+    noSonarFilter.addComponent(sensorContext.getResource(inputFile).getEffectiveKey(), noSonarLines);
+  }
 
+  protected void saveLinesData(int linesNumber, Set<Integer> linesOfCode, Set<Integer> commentLines) {
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
     for (int line = 1; line <= linesNumber; line++) {
       fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, linesOfCode.contains(line) ? 1 : 0);
@@ -159,10 +167,14 @@ public class MetricsVisitor extends SubscriptionAstTreeVisitor {
     fileLinesContext.save();
   }
 
-  private void saveMetricOnFile(Metric metric, double value) {
+  protected void saveMetricOnFile(Metric metric, double value) {
     sensorContext.saveMeasure(inputFile, metric, value);
   }
 
+  protected void saveMeasureOnFile(Measure measure) {
+    sensorContext.saveMeasure(inputFile, measure);
+  }
+
   public static Kind[] getClassNodes() {
     return CLASS_NODES;
   }
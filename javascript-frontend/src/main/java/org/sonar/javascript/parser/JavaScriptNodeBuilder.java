@@ -19,6 +19,7 @@
  */
 package org.sonar.javascript.parser;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Rule;
@@ -27,6 +28,8 @@ import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.api.Trivia;
 import com.sonar.sslr.api.typed.Input;
 import com.sonar.sslr.api.typed.NodeBuilder;
+import org.sonar.javascript.lexer.JavaScriptKeyword;
+import org.sonar.javascript.lexer.JavaScriptPunctuator;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
 import org.sonar.javascript.tree.impl.lexical.InternalSyntaxToken;
 import org.sonar.javascript.tree.impl.lexical.InternalSyntaxTrivia;
@@ -35,11 +38,20 @@ import org.sonar.plugins.javascript.api.tree.lexical.SyntaxTrivia;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitor;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class JavaScriptNodeBuilder implements NodeBuilder {
 
+  private static final Map<String, String> KEYWORDS_AND_PUNCTUATORS = keywordsAndPunctuators();
+
+  // texts of the tokens of the input being parsed, released once its EOF token has been created
+  private Input currentInput = null;
+  private Map<String, String> internedTexts = null;
+
   @Override
   public Object createNonTerminal(GrammarRuleKey ruleKey, Rule rule, List<Object> children, int startIndex, int endIndex) {
     for (Object child : children) {
@@ -54,17 +66,56 @@ public class JavaScriptNodeBuilder implements NodeBuilder {
   public Object createTerminal(Input input, int startIndex, int endIndex, List<Trivia> trivias, TokenType type) {
     boolean isEof = GenericTokenType.EOF.equals(type);
     LineColumnValue lineColumnValue = tokenPosition(input, startIndex, endIndex);
-    return new InternalSyntaxToken(
+    if (internedTexts == null || input != currentInput) {
+      currentInput = input;
+      internedTexts = new HashMap<>();
+    }
+    InternalSyntaxToken token = new InternalSyntaxToken(
         lineColumnValue.line,
         lineColumnValue.column,
-        lineColumnValue.value,
+        intern(lineColumnValue.value),
         createTrivias(trivias),
         startIndex,
         isEof
     );
+    if (isEof) {
+      currentInput = null;
+      internedTexts = null;
+    }
+    return token;
+  }
+
+  /**
+   * Keywords and punctuators share the values of {@link JavaScriptKeyword} and {@link JavaScriptPunctuator}, other texts such as
+   * identifiers are shared by the tokens of the input.
+   */
+  private String intern(String text) {
+    String interned = KEYWORDS_AND_PUNCTUATORS.get(text);
+    if (interned == null) {
+      interned = internedTexts.get(text);
+      if (interned == null) {
+        internedTexts.put(text, text);
+        interned = text;
+      }
+    }
+    return interned;
+  }
+
+  private static Map<String, String> keywordsAndPunctuators() {
+    Map<String, String> values = new HashMap<>();
+    for (JavaScriptKeyword keyword : JavaScriptKeyword.values()) {
+      values.put(keyword.getValue(), keyword.getValue());
+    }
+    for (JavaScriptPunctuator punctuator : JavaScriptPunctuator.values()) {
+      values.put(punctuator.getValue(), punctuator.getValue());
+    }
+    return ImmutableMap.copyOf(values);
   }
 
   private static List<SyntaxTrivia> createTrivias(List<Trivia> trivias) {
+    if (trivias.isEmpty()) {
+      return Collections.emptyList();
+    }
     List<SyntaxTrivia> result = Lists.newArrayList();
     for (Trivia trivia : trivias) {
       Token trivialToken = trivia.getToken();
@@ -26,6 +26,7 @@ import com.sonar.sslr.api.typed.Optional;
 import org.apache.commons.collections.ListUtils;
 import org.sonar.javascript.lexer.JavaScriptKeyword;
 import org.sonar.javascript.lexer.JavaScriptPunctuator;
+import org.sonar.javascript.tree.impl.JavaScriptTree;
 import org.sonar.javascript.tree.impl.SeparatedList;
 import org.sonar.javascript.tree.impl.declaration.AccessorMethodDeclarationTreeImpl;
 import org.sonar.javascript.tree.impl.declaration.ArrayBindingPatternTreeImpl;
@@ -1445,10 +1446,13 @@ public class TreeFactory {
   // [END] Classes, methods, functions & generators
 
   public ScriptTreeImpl script(Optional<InternalSyntaxToken> shebangToken, Optional<ModuleTreeImpl> items, Tree spacing, InternalSyntaxToken eof) {
-    return new ScriptTreeImpl(
+    ScriptTreeImpl script = new ScriptTreeImpl(
       shebangToken.isPresent() ? shebangToken.get() : null,
       items.isPresent() ? items.get() : null,
       eof);
+    // the script is the last tree to be built
+    JavaScriptTree.setParents(script);
+    return script;
   }
 
   public static class Tuple<T, U > {
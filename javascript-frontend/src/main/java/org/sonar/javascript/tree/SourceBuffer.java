@@ -0,0 +1,86 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import org.sonar.javascript.highlighter.SourceFileOffsets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Content of a source file, read and decoded once and shared by the parser, the offset table and the line-based checks.
+ * Not thread-safe: an instance is meant to be used by the thread analysing the file.
+ */
+public class SourceBuffer {
+
+  private final File file;
+  private final String content;
+  private List<String> lines = null;
+  private SourceFileOffsets offsets = null;
+
+  public SourceBuffer(File file, String content) {
+    this.file = file;
+    this.content = content;
+  }
+
+  public static SourceBuffer read(File file, Charset charset) {
+    try {
+      return new SourceBuffer(file, Files.toString(file, charset));
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read " + file, e);
+    }
+  }
+
+  public File file() {
+    return file;
+  }
+
+  public String content() {
+    return content;
+  }
+
+  /**
+   * @return lines of the file without line terminators, as {@link Files#readLines(File, Charset)} would return them
+   */
+  public List<String> lines() {
+    if (lines == null) {
+      try {
+        lines = ImmutableList.copyOf(CharStreams.readLines(new StringReader(content)));
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not split lines of " + file, e);
+      }
+    }
+    return lines;
+  }
+
+  public SourceFileOffsets offsets() {
+    if (offsets == null) {
+      offsets = new SourceFileOffsets(content);
+    }
+    return offsets;
+  }
+
+}
@@ -67,22 +67,39 @@ public final class SyntacticEquivalence {
     if (leftNode == null || rightNode == null) {
       return false;
     }
-    if (leftNode.getKind() != rightNode.getKind()) {
+    if (leftNode.getKind() != rightNode.getKind() || leftNode.syntacticHash() != rightNode.syntacticHash()) {
       return false;
     } else if (leftNode.isLeaf()) {
       return areLeafsEquivalent(leftNode, rightNode);
     }
 
-    Iterator<Tree> iteratorA = leftNode.childrenIterator();
-    Iterator<Tree> iteratorB = rightNode.childrenIterator();
-
-    while (iteratorA.hasNext() && iteratorB.hasNext()) {
-      if (!areEquivalent(iteratorA.next(), iteratorB.next())) {
+    Iterator<Tree> leftChildren = leftNode.childrenIterator();
+    Iterator<Tree> rightChildren = rightNode.childrenIterator();
+    while (leftChildren.hasNext() && rightChildren.hasNext()) {
+      if (!areEquivalent(leftChildren.next(), rightChildren.next())) {
         return false;
       }
     }
+    return !leftChildren.hasNext() && !rightChildren.hasNext();
+  }
 
-    return !iteratorA.hasNext() && !iteratorB.hasNext();
+  /**
+   * @return a hash such that syntactically equivalent nodes have the same hash, 0 for null. It is kept on the nodes after the first call,
+   * so that comparisons of nodes with different hashes can be rejected without walking them.
+   */
+  public static int syntacticHash(@Nullable Tree tree) {
+    return tree == null ? 0 : ((JavaScriptTree) tree).syntacticHash();
+  }
+
+  /**
+   * @return a hash such that syntactically equivalent lists of nodes have the same hash
+   */
+  public static int syntacticHash(List<? extends Tree> trees) {
+    int result = trees.size();
+    for (Tree tree : trees) {
+      result = 31 * result + syntacticHash(tree);
+    }
+    return result;
   }
 
   /**
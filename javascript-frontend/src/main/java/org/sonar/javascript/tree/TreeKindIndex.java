@@ -0,0 +1,143 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree;
+
+import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Index of the nodes of a tree by kind, built with a single traversal on first query.
+ * Nodes are kept in a table in document order, and the indexes of the nodes of each kind are stored contiguously in one int array.
+ */
+public class TreeKindIndex {
+
+  private static final int KIND_COUNT = Kind.values().length;
+
+  private final Tree root;
+  private Tree[] nodes = null;
+  // nodes of kind k are nodes[nodeIndexes[i]] for kindStart[k] <= i < kindStart[k + 1]
+  private int[] kindStart;
+  private int[] nodeIndexes;
+
+  public TreeKindIndex(Tree root) {
+    this.root = root;
+  }
+
+  /**
+   * @return the nodes of the given kind, in document order. The list is unmodifiable and shares the index storage.
+   */
+  public List<Tree> nodes(Kind kind) {
+    if (nodes == null) {
+      build();
+    }
+    return new KindList(kindStart[kind.ordinal()], kindStart[kind.ordinal() + 1]);
+  }
+
+  private void build() {
+    Tree[] table = new Tree[64];
+    int[] kinds = new int[64];
+    int size = 0;
+
+    // pre-order traversal with an explicit stack, children pushed in reverse order
+    Tree[] stack = new Tree[64];
+    int top = 0;
+    stack[top++] = root;
+
+    while (top > 0) {
+      JavaScriptTree tree = (JavaScriptTree) stack[--top];
+      if (size == table.length) {
+        table = Arrays.copyOf(table, size * 2);
+        kinds = Arrays.copyOf(kinds, size * 2);
+      }
+      table[size] = tree;
+      kinds[size] = tree.getKind().ordinal();
+      size++;
+
+      if (!tree.isLeaf()) {
+        int firstChild = top;
+        Iterator<Tree> children = tree.childrenIterator();
+        while (children.hasNext()) {
+          Tree child = children.next();
+          if (child != null) {
+            if (top == stack.length) {
+              stack = Arrays.copyOf(stack, top * 2);
+            }
+            stack[top++] = child;
+          }
+        }
+        for (int i = firstChild, j = top - 1; i < j; i++, j--) {
+          Tree child = stack[i];
+          stack[i] = stack[j];
+          stack[j] = child;
+        }
+      }
+    }
+
+    int[] start = new int[KIND_COUNT + 1];
+    for (int i = 0; i < size; i++) {
+      start[kinds[i] + 1]++;
+    }
+    for (int k = 0; k < KIND_COUNT; k++) {
+      start[k + 1] += start[k];
+    }
+
+    int[] next = Arrays.copyOf(start, KIND_COUNT);
+    int[] indexes = new int[size];
+    for (int i = 0; i < size; i++) {
+      indexes[next[kinds[i]]++] = i;
+    }
+
+    this.nodes = table;
+    this.kindStart = start;
+    this.nodeIndexes = indexes;
+  }
+
+  private class KindList extends AbstractList<Tree> implements RandomAccess {
+
+    private final int from;
+    private final int to;
+
+    KindList(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Tree get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+      }
+      return nodes[nodeIndexes[from + index]];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+
+}
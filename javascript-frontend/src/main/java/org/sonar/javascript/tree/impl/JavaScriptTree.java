@@ -19,13 +19,70 @@
  */
 package org.sonar.javascript.tree.impl;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import org.sonar.javascript.tree.visitors.TreeWalker;
 import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 
 public abstract class JavaScriptTree implements Tree {
 
+  private static final Kind[] FUNCTION_KINDS = {
+    Kind.FUNCTION_DECLARATION,
+    Kind.FUNCTION_EXPRESSION,
+    Kind.GENERATOR_DECLARATION,
+    Kind.GENERATOR_FUNCTION_EXPRESSION,
+    Kind.METHOD,
+    Kind.GENERATOR_METHOD,
+    Kind.GET_METHOD,
+    Kind.SET_METHOD,
+    Kind.ARROW_FUNCTION
+  };
+
+  private static final Kind[] LOOP_KINDS = {
+    Kind.FOR_STATEMENT,
+    Kind.FOR_IN_STATEMENT,
+    Kind.FOR_OF_STATEMENT,
+    Kind.WHILE_STATEMENT,
+    Kind.DO_WHILE_STATEMENT
+  };
+
+  // trees for which the symbol model creates a scope
+  private static final Kind[] SCOPE_KINDS = {
+    Kind.SCRIPT,
+    Kind.FUNCTION_DECLARATION,
+    Kind.FUNCTION_EXPRESSION,
+    Kind.GENERATOR_DECLARATION,
+    Kind.GENERATOR_FUNCTION_EXPRESSION,
+    Kind.METHOD,
+    Kind.GENERATOR_METHOD,
+    Kind.GET_METHOD,
+    Kind.SET_METHOD,
+    Kind.ARROW_FUNCTION,
+    Kind.CATCH_BLOCK
+  };
+
+  // set by setParents once the tree is built
+  private JavaScriptTree parent;
+
+  // values computed on first access, allocated for the nodes which are not leaves only
+  private NodeCache cache;
+
+  private static final class NodeCache {
+    // lastToken can be null, lastTokenComputed tells whether it is known
+    private SyntaxToken firstToken;
+    private SyntaxToken lastToken;
+    private boolean lastTokenComputed = false;
+    private int syntacticHash;
+    private boolean syntacticHashComputed = false;
+  }
+
   public int getLine() {
     return getFirstToken().line();
   }
@@ -56,31 +113,236 @@ public abstract class JavaScriptTree implements Tree {
     return false;
   }
 
+  /**
+   * Number of children of this node, including {@code null} ones. Zero for a leaf.
+   * Children are not kept on the node: this iterates them, walks should use {@link #childrenIterator()} instead.
+   */
+  public final int childCount() {
+    return isLeaf() ? 0 : Iterators.size(childrenIterator());
+  }
+
+  /**
+   * @return the child at the given index, as returned by {@link #childrenIterator()}: can be {@code null}
+   * @throws IndexOutOfBoundsException if there is no child at this index
+   */
+  public final Tree child(int index) {
+    if (isLeaf()) {
+      throw new IndexOutOfBoundsException("Leaf " + getKind() + " has no children");
+    }
+    return Iterators.get(childrenIterator(), index);
+  }
+
+  private NodeCache cache() {
+    if (cache == null) {
+      cache = new NodeCache();
+    }
+    return cache;
+  }
+
+  /**
+   * @return the parent of this node, null for the root of the tree
+   */
+  @Nullable
+  public Tree parent() {
+    return parent;
+  }
+
+  /**
+   * @return the ancestors of this node, from its parent up to the root of the tree
+   */
+  public Iterable<Tree> ancestors() {
+    return new Iterable<Tree>() {
+      @Override
+      public Iterator<Tree> iterator() {
+        return new AbstractIterator<Tree>() {
+          private JavaScriptTree next = parent;
+
+          @Override
+          protected Tree computeNext() {
+            if (next == null) {
+              return endOfData();
+            }
+            JavaScriptTree ancestor = next;
+            next = next.parent;
+            return ancestor;
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * @return the nearest ancestor of this node with one of the given kinds, null if there is none
+   */
+  @Nullable
+  public Tree nearestAncestor(Kind... kinds) {
+    JavaScriptTree ancestor = parent;
+    while (ancestor != null && !ancestor.is(kinds)) {
+      ancestor = ancestor.parent;
+    }
+    return ancestor;
+  }
+
+  /**
+   * @return the function, method, generator or arrow function containing this node, null if there is none
+   */
+  @Nullable
+  public Tree enclosingFunction() {
+    return nearestAncestor(FUNCTION_KINDS);
+  }
+
+  /**
+   * @return the loop statement containing this node, null if there is none
+   */
+  @Nullable
+  public Tree enclosingLoop() {
+    return nearestAncestor(LOOP_KINDS);
+  }
+
+  /**
+   * @return the tree of the innermost scope containing this node: a function, a catch block or the script
+   */
+  @Nullable
+  public Tree enclosingScope() {
+    return nearestAncestor(SCOPE_KINDS);
+  }
+
+  /**
+   * Sets the parent of every node of the given tree. Called once the tree is completely built.
+   */
+  public static void setParents(JavaScriptTree root) {
+    Deque<JavaScriptTree> stack = new ArrayDeque<>();
+    stack.push(root);
+
+    while (!stack.isEmpty()) {
+      JavaScriptTree tree = stack.pop();
+      if (tree.isLeaf()) {
+        continue;
+      }
+
+      Iterator<Tree> children = tree.childrenIterator();
+      while (children.hasNext()) {
+        JavaScriptTree child = (JavaScriptTree) children.next();
+
+        if (child != null) {
+          child.parent = tree;
+          stack.push(child);
+        }
+      }
+    }
+  }
+
+  /**
+   * Hash of the structure of this tree, consistent with {@link org.sonar.javascript.tree.SyntacticEquivalence}: it depends only on
+   * the kinds of the nodes, their number of children and the text of the tokens, so that syntactically equivalent trees have the same hash.
+   * It is computed on first access for this tree and all its subtrees, and kept on the nodes which are not leaves:
+   * this must not be called before the tree is completely built.
+   */
+  public final int syntacticHash() {
+    if (isLeaf()) {
+      return leafSyntacticHash(this);
+    }
+    if (cache == null || !cache.syntacticHashComputed) {
+      computeSyntacticHashes(this);
+    }
+    return cache.syntacticHash;
+  }
+
+  private static int leafSyntacticHash(JavaScriptTree leaf) {
+    Kind kind = leaf.getKind();
+    int hash = kind == null ? 0 : (kind.ordinal() + 1);
+    if (leaf instanceof SyntaxToken) {
+      hash = 31 * hash + ((SyntaxToken) leaf).text().hashCode();
+    }
+    return hash;
+  }
+
+  /**
+   * Computes in a single post-order walk the hash of the tree and of all its subtrees, without recursion so that deeply nested
+   * trees such as long chains of binary expressions do not overflow the stack.
+   */
+  private static void computeSyntacticHashes(Tree root) {
+    TreeWalker.walk(root, new TreeWalker.Listener() {
+      // hash accumulated so far for each tree on the path from the root
+      private int[] hashes = new int[64];
+      private int depth = 0;
+
+      @Override
+      public void enter(Tree tree) {
+        JavaScriptTree node = (JavaScriptTree) tree;
+        if (depth == hashes.length) {
+          hashes = Arrays.copyOf(hashes, depth * 2);
+        }
+        if (node.isLeaf()) {
+          hashes[depth] = leafSyntacticHash(node);
+        } else {
+          Kind kind = node.getKind();
+          int hash = kind == null ? 0 : (kind.ordinal() + 1);
+          hashes[depth] = 31 * hash + node.childCount();
+        }
+        depth++;
+      }
+
+      @Override
+      public void leave(Tree tree) {
+        JavaScriptTree node = (JavaScriptTree) tree;
+        depth--;
+        int hash = hashes[depth];
+        if (!node.isLeaf()) {
+          NodeCache nodeCache = node.cache();
+          nodeCache.syntacticHash = hash;
+          nodeCache.syntacticHashComputed = true;
+        }
+        if (depth > 0) {
+          hashes[depth - 1] = 31 * hashes[depth - 1] + hash;
+        }
+      }
+    });
+  }
+
+  /**
+   * First and last tokens are computed on first access and kept on the nodes which are not leaves, tokens override these methods
+   * to return themselves: this must not be called before the tree is completely built.
+   */
   public SyntaxToken getLastToken() {
-    SyntaxToken lastToken = null;
-    Iterator<Tree> childrenIterator = childrenIterator();
-    while (childrenIterator.hasNext()) {
-      JavaScriptTree child = (JavaScriptTree) childrenIterator.next();
+    NodeCache nodeCache = cache();
+    if (!nodeCache.lastTokenComputed) {
+      nodeCache.lastToken = computeLastToken();
+      nodeCache.lastTokenComputed = true;
+    }
+    return nodeCache.lastToken;
+  }
+
+  public SyntaxToken getFirstToken() {
+    NodeCache nodeCache = cache();
+    if (nodeCache.firstToken == null) {
+      nodeCache.firstToken = computeFirstToken();
+    }
+    return nodeCache.firstToken;
+  }
+
+  private SyntaxToken computeLastToken() {
+    Tree[] children = Iterators.toArray(childrenIterator(), Tree.class);
+    for (int i = children.length - 1; i >= 0; i--) {
+      JavaScriptTree child = (JavaScriptTree) children[i];
       if (child != null) {
         SyntaxToken childLastToken = child.getLastToken();
         if (childLastToken != null) {
-          lastToken = childLastToken;
+          return childLastToken;
         }
       }
     }
-    return lastToken;
+    return null;
   }
 
-  public SyntaxToken getFirstToken() {
-    Iterator<Tree> childrenIterator = childrenIterator();
-    Tree child;
-    do {
-      if (childrenIterator.hasNext()) {
-        child = childrenIterator.next();
-      } else {
-        throw new IllegalStateException("Tree has no non-null children " + getKind());
+  private SyntaxToken computeFirstToken() {
+    Iterator<Tree> children = childrenIterator();
+    while (children.hasNext()) {
+      Tree child = children.next();
+      if (child != null) {
+        return ((JavaScriptTree) child).getFirstToken();
       }
-    } while (child == null);
-    return ((JavaScriptTree) child).getFirstToken();
+    }
+    throw new IllegalStateException("Tree has no non-null children " + getKind());
   }
 }
@@ -20,7 +20,9 @@
 package org.sonar.javascript.tree.symbols;
 
 import org.sonar.plugins.javascript.api.symbols.Symbol;
+import org.sonar.plugins.javascript.api.tree.Tree;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 public interface SymbolModelBuilder {
@@ -31,6 +33,9 @@ public interface SymbolModelBuilder {
 
   Set<Scope> getScopes();
 
+  @Nullable
+  Scope getScope(Tree tree);
+
   Symbol declareSymbol(String name, Symbol.Kind kind, Scope scope);
 
   // todo remove declaration argument in future. We can infer declaration tree from scope
@@ -31,7 +31,9 @@ import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
 
 import javax.annotation.Nullable;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -39,17 +41,46 @@ public class SymbolModelImpl implements SymbolModel, SymbolModelBuilder {
 
   private Map<Symbol, Scope> symbolScope = Maps.newHashMap();
   private Set<Scope> scopes = Sets.newHashSet();
+  private Map<Tree, Scope> scopesByTree = new IdentityHashMap<>();
+  private Map<Symbol.Kind, Set<Symbol>> symbolsByKind = new EnumMap<>(Symbol.Kind.class);
+  private Map<String, Set<Symbol>> symbolsByName = Maps.newHashMap();
   private Scope globalScope;
 
   public static SymbolModelImpl create(ScriptTree script, @Nullable Symbolizable symbolizable, @Nullable SourceFileOffsets sourceFileOffsets, @Nullable Settings settings) {
+    SymbolModelImpl symbolModel = createWithoutTypes(script, symbolizable, sourceFileOffsets);
+    inferTypes(script, settings);
+    return symbolModel;
+  }
+
+  /**
+   * Builds the symbol model of the script without inferring types, see {@link #inferTypes(ScriptTree, Settings)}.
+   */
+  public static SymbolModelImpl createWithoutTypes(ScriptTree script, @Nullable Symbolizable symbolizable, @Nullable SourceFileOffsets sourceFileOffsets) {
     SymbolModelImpl symbolModel = new SymbolModelImpl();
     new SymbolVisitor(symbolModel, symbolizable, sourceFileOffsets).visitScript(script);
-    new TypeVisitor(settings).visitScript(script);
     return symbolModel;
   }
 
+  /**
+   * Infers types of the symbols and expressions of a script whose symbol model is built.
+   */
+  public static void inferTypes(ScriptTree script, @Nullable Settings settings) {
+    new TypeVisitor(settings).visitScript(script);
+  }
+
   private void setScopeForSymbol(Symbol symbol, Scope scope) {
     symbolScope.put(symbol, scope);
+    index(symbolsByKind, symbol.kind(), symbol);
+    index(symbolsByName, symbol.name(), symbol);
+  }
+
+  private static <K> void index(Map<K, Set<Symbol>> index, K key, Symbol symbol) {
+    Set<Symbol> symbols = index.get(key);
+    if (symbols == null) {
+      symbols = Sets.newHashSet();
+      index.put(key, symbols);
+    }
+    symbols.add(symbol);
   }
 
   @Override
@@ -63,6 +94,7 @@ public class SymbolModelImpl implements SymbolModel, SymbolModelBuilder {
       globalScope = scope;
     }
     scopes.add(scope);
+    scopesByTree.put(scope.tree(), scope);
   }
 
   @Override
@@ -98,7 +130,7 @@ public class SymbolModelImpl implements SymbolModel, SymbolModelBuilder {
    */
   @Override
   public Set<Symbol> getSymbols() {
-    return symbolScope.keySet();
+    return Collections.unmodifiableSet(symbolScope.keySet());
   }
 
   /**
@@ -108,13 +140,39 @@ public class SymbolModelImpl implements SymbolModel, SymbolModelBuilder {
    */
   @Override
   public Set<Symbol> getSymbols(Symbol.Kind kind) {
-    Set<Symbol> result = new HashSet<>();
-    for (Symbol symbol : getSymbols()){
-      if (kind.equals(symbol.kind())){
-        result.add(symbol);
+    return view(symbolsByKind.get(kind));
+  }
+
+  /**
+   * Not part of {@link SymbolModel}, so that its other implementations keep working: see {@link #symbolsOfKinds(SymbolModel, Set)}.
+   *
+   * @param kinds kinds of symbols to look for
+   * @return unmodifiable set of symbols with one of the given kinds
+   */
+  public Set<Symbol> getSymbols(Set<Symbol.Kind> kinds) {
+    Set<Symbol> result = Collections.emptySet();
+    for (Symbol.Kind kind : kinds) {
+      Set<Symbol> kindSymbols = symbolsByKind.get(kind);
+      if (kindSymbols != null) {
+        result = result.isEmpty() ? kindSymbols : Sets.union(result, kindSymbols);
       }
     }
-    return result;
+    return view(result);
+  }
+
+  /**
+   * @return unmodifiable set of the symbols of the model with one of the given kinds, read from the index of kinds
+   * when the model is a {@link SymbolModelImpl}
+   */
+  public static Set<Symbol> symbolsOfKinds(SymbolModel symbolModel, Set<Symbol.Kind> kinds) {
+    if (symbolModel instanceof SymbolModelImpl) {
+      return ((SymbolModelImpl) symbolModel).getSymbols(kinds);
+    }
+    Set<Symbol> result = Sets.newHashSet();
+    for (Symbol.Kind kind : kinds) {
+      result.addAll(symbolModel.getSymbols(kind));
+    }
+    return Collections.unmodifiableSet(result);
   }
 
   /**
@@ -124,24 +182,17 @@ public class SymbolModelImpl implements SymbolModel, SymbolModelBuilder {
    */
   @Override
   public Set<Symbol> getSymbols(String name) {
-    Set<Symbol> result = new HashSet<>();
-    for (Symbol symbol : getSymbols()){
-      if (name.equals(symbol.name())){
-        result.add(symbol);
-      }
-    }
-    return result;
+    return view(symbolsByName.get(name));
+  }
+
+  private static Set<Symbol> view(@Nullable Set<Symbol> symbols) {
+    return symbols == null ? Collections.<Symbol>emptySet() : Collections.unmodifiableSet(symbols);
   }
 
   @Nullable
   @Override
   public Scope getScope(Tree tree) {
-    for (Scope scope : getScopes()){
-      if (scope.tree().equals(tree)){
-        return scope;
-      }
-    }
-    return null;
+    return scopesByTree.get(tree);
   }
 
 }
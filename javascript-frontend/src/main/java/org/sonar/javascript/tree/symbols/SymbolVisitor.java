@@ -237,16 +237,15 @@ public class SymbolVisitor extends BaseTreeVisitor {
     if (symbolizable != null) {
       symbolizable.setSymbolTable(HighlightSymbolTableBuilder.build(symbolizable, (SymbolModel) symbolModel, sourceFileOffsets));
     } else {
-      LOG.warn("Symbol in source view will not be highlighted.");
+      LOG.debug("Symbol in source view will not be highlighted.");
     }
   }
 
   private Scope getScopeFor(Tree tree) {
-    for (Scope scope : symbolModel.getScopes()) {
-      if (scope.tree().equals(tree)) {
-        return scope;
-      }
+    Scope scope = symbolModel.getScope(tree);
+    if (scope == null) {
+      throw new IllegalStateException("No scope found for the tree");
     }
-    throw new IllegalStateException("No scope found for the tree");
+    return scope;
   }
 }
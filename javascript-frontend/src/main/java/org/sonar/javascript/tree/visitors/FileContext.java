@@ -0,0 +1,52 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+
+import java.util.List;
+
+/**
+ * Content and index of the visited file, computed once by the analysis and shared by its visitors.
+ * Implemented by the contexts of the analysis next to {@link TreeVisitorContext}, which it is kept out of so that other
+ * implementations of the API keep working: use {@link FileContexts} to access it from any context.
+ */
+public interface FileContext {
+
+  /**
+   * @return the content of the current file
+   */
+  String getFileContent();
+
+  /**
+   * @return the lines of the current file, without line terminators
+   */
+  List<String> getFileLines();
+
+  /**
+   * The nodes of the file are indexed by kind once, and the index is shared by all the checks: prefer this method to visiting
+   * the whole tree when only a few kinds of nodes are needed.
+   *
+   * @return the nodes of the current file with the given kind, in document order, as an unmodifiable list
+   */
+  List<Tree> getTreesOfKind(Tree.Kind kind);
+
+}
@@ -0,0 +1,59 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import org.sonar.javascript.tree.SourceBuffer;
+import org.sonar.javascript.tree.TreeKindIndex;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Accessors of {@link FileContext}, which read or walk the file again when the context does not share its content and index.
+ */
+public final class FileContexts {
+
+  private FileContexts() {
+  }
+
+  public static String fileContent(TreeVisitorContext context, Charset charset) {
+    if (context instanceof FileContext) {
+      return ((FileContext) context).getFileContent();
+    }
+    return SourceBuffer.read(context.getFile(), charset).content();
+  }
+
+  public static List<String> fileLines(TreeVisitorContext context, Charset charset) {
+    if (context instanceof FileContext) {
+      return ((FileContext) context).getFileLines();
+    }
+    return SourceBuffer.read(context.getFile(), charset).lines();
+  }
+
+  public static List<Tree> treesOfKind(TreeVisitorContext context, Tree.Kind kind) {
+    if (context instanceof FileContext) {
+      return ((FileContext) context).getTreesOfKind(kind);
+    }
+    return new TreeKindIndex(context.getTopTree()).nodes(kind);
+  }
+
+}
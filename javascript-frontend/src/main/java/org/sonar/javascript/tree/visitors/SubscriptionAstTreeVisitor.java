@@ -26,14 +26,15 @@ import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
 import org.sonar.plugins.javascript.api.tree.lexical.SyntaxTrivia;
 
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class SubscriptionAstTreeVisitor implements JavaScriptCheck {
 
   private TreeVisitorContext context;
-  private Collection<Tree.Kind> nodesToVisit;
+  // compiled from nodesToVisit() on first use
+  private Set<Tree.Kind> subscribedKinds;
 
   public abstract List<Tree.Kind> nodesToVisit();
 
@@ -64,43 +65,52 @@ public abstract class SubscriptionAstTreeVisitor implements JavaScriptCheck {
 
   @Override
   public void scanFile(TreeVisitorContext context) {
-    this.context = context;
+    setContext(context);
     visitFile(context.getTopTree());
     scanTree(context.getTopTree());
   }
 
+  void setContext(TreeVisitorContext context) {
+    this.context = context;
+  }
+
   protected void scanTree(Tree tree) {
-    nodesToVisit = nodesToVisit();
+    subscribedKinds();
     visit(tree);
   }
 
-  private void visit(Tree tree) {
-    boolean isSubscribed = isSubscribed(tree);
-    if (isSubscribed) {
-      visitNode(tree);
+  /**
+   * @return the kinds returned by {@link #nodesToVisit()}, which is called only once per visitor
+   */
+  protected final Set<Tree.Kind> subscribedKinds() {
+    if (subscribedKinds == null) {
+      Set<Tree.Kind> kinds = EnumSet.noneOf(Tree.Kind.class);
+      kinds.addAll(nodesToVisit());
+      subscribedKinds = kinds;
     }
-    visitChildren(tree);
-    if (isSubscribed) {
-      leaveNode(tree);
-    }
-  }
-
-  protected boolean isSubscribed(Tree tree) {
-    return nodesToVisit.contains(((JavaScriptTree) tree).getKind());
+    return subscribedKinds;
   }
 
-  private void visitChildren(Tree tree) {
-    JavaScriptTree javaTree = (JavaScriptTree) tree;
-
-    if (!javaTree.isLeaf()) {
-      for (Iterator<Tree> iter = javaTree.childrenIterator(); iter.hasNext();) {
-        Tree next = iter.next();
+  private void visit(Tree tree) {
+    TreeWalker.walk(tree, new TreeWalker.Listener() {
+      @Override
+      public void enter(Tree node) {
+        if (isSubscribed(node)) {
+          visitNode(node);
+        }
+      }
 
-        if (next != null) {
-          visit(next);
+      @Override
+      public void leave(Tree node) {
+        if (isSubscribed(node)) {
+          leaveNode(node);
         }
       }
-    }
+    });
+  }
+
+  protected boolean isSubscribed(Tree tree) {
+    return subscribedKinds.contains(((JavaScriptTree) tree).getKind());
   }
 
 }
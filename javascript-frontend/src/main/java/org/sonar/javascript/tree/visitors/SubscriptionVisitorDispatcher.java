@@ -0,0 +1,134 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import com.google.common.collect.ImmutableList;
+import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.plugins.javascript.api.JavaScriptCheck;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several {@link SubscriptionAstTreeVisitor} with a single walk of the tree:
+ * each node is dispatched to the visitors subscribed to its kind.
+ */
+public class SubscriptionVisitorDispatcher {
+
+  private static final SubscriptionAstTreeVisitor[] NO_SUBSCRIBER = new SubscriptionAstTreeVisitor[0];
+
+  private final List<SubscriptionAstTreeVisitor> visitors;
+  private final SubscriptionAstTreeVisitor[][] subscribersByKind;
+
+  public SubscriptionVisitorDispatcher(List<SubscriptionAstTreeVisitor> visitors) {
+    this.visitors = ImmutableList.copyOf(visitors);
+    this.subscribersByKind = subscribersByKind(this.visitors);
+  }
+
+  /**
+   * Visitors overriding {@link SubscriptionAstTreeVisitor#scanFile(TreeVisitorContext)} or {@link SubscriptionAstTreeVisitor#scanTree(Tree)}
+   * drive their own traversal, and visitors overriding {@link SubscriptionAstTreeVisitor#isSubscribed(Tree)} filter the nodes themselves:
+   * they cannot be dispatched and have to scan the file individually.
+   */
+  public static boolean canDispatch(JavaScriptCheck visitor) {
+    if (!(visitor instanceof SubscriptionAstTreeVisitor)) {
+      return false;
+    }
+    Class<?> visitorClass = visitor.getClass();
+    return !overrides(visitorClass, "scanFile", TreeVisitorContext.class)
+      && !overrides(visitorClass, "scanTree", Tree.class)
+      && !overrides(visitorClass, "isSubscribed", Tree.class);
+  }
+
+  private static boolean overrides(Class<?> visitorClass, String methodName, Class<?>... parameterTypes) {
+    for (Class<?> c = visitorClass; c != SubscriptionAstTreeVisitor.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod(methodName, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // not declared by this class, look at its superclass
+      }
+    }
+    return false;
+  }
+
+  public List<SubscriptionAstTreeVisitor> visitors() {
+    return visitors;
+  }
+
+  public void scanFile(TreeVisitorContext context) {
+    for (SubscriptionAstTreeVisitor visitor : visitors) {
+      visitor.setContext(context);
+      visitor.visitFile(context.getTopTree());
+    }
+    if (!visitors.isEmpty()) {
+      visit(context.getTopTree());
+    }
+  }
+
+  private void visit(Tree tree) {
+    TreeWalker.walk(tree, new TreeWalker.Listener() {
+      @Override
+      public void enter(Tree node) {
+        for (SubscriptionAstTreeVisitor subscriber : subscribers(node)) {
+          subscriber.visitNode(node);
+        }
+      }
+
+      @Override
+      public void leave(Tree node) {
+        for (SubscriptionAstTreeVisitor subscriber : subscribers(node)) {
+          subscriber.leaveNode(node);
+        }
+      }
+    });
+  }
+
+  private SubscriptionAstTreeVisitor[] subscribers(Tree tree) {
+    return subscribersByKind[((JavaScriptTree) tree).getKind().ordinal()];
+  }
+
+  private static SubscriptionAstTreeVisitor[][] subscribersByKind(List<SubscriptionAstTreeVisitor> visitors) {
+    Tree.Kind[] kinds = Tree.Kind.values();
+    List<List<SubscriptionAstTreeVisitor>> subscribers = new ArrayList<>(kinds.length);
+    for (int i = 0; i < kinds.length; i++) {
+      subscribers.add(new ArrayList<SubscriptionAstTreeVisitor>());
+    }
+
+    for (SubscriptionAstTreeVisitor visitor : visitors) {
+      for (Tree.Kind kind : visitor.subscribedKinds()) {
+        List<SubscriptionAstTreeVisitor> kindSubscribers = subscribers.get(kind.ordinal());
+        if (!kindSubscribers.contains(visitor)) {
+          kindSubscribers.add(visitor);
+        }
+      }
+    }
+
+    SubscriptionAstTreeVisitor[][] result = new SubscriptionAstTreeVisitor[kinds.length][];
+    for (int i = 0; i < kinds.length; i++) {
+      List<SubscriptionAstTreeVisitor> kindSubscribers = subscribers.get(i);
+      result[i] = kindSubscribers.isEmpty() ? NO_SUBSCRIBER : kindSubscribers.toArray(new SubscriptionAstTreeVisitor[kindSubscribers.size()]);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.plugins.javascript.api.tree.Tree;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Depth-first walk of a tree driven by an explicit stack rather than by recursion, so that the depth of the tree
+ * is not bounded by the size of the thread stack.
+ * <p>
+ * Listeners get the same calls as with a recursive walk: {@link Listener#enter(Tree)} on a node, then the whole walk
+ * of each of its non null children in order, then {@link Listener#leave(Tree)} on the node.
+ * <p>
+ * A {@link #setCheckpoint(Runnable) checkpoint} may be run periodically during each walk of a thread, for instance to abort
+ * the walk of a large tree by throwing an exception.
+ */
+public final class TreeWalker {
+
+  public interface Listener {
+
+    void enter(Tree tree);
+
+    void leave(Tree tree);
+
+  }
+
+  private static final int INITIAL_DEPTH = 64;
+  // power of two
+  static final int CHECKPOINT_INTERVAL = 1024;
+
+  private static final ThreadLocal<Runnable> CHECKPOINT = new ThreadLocal<>();
+
+  private TreeWalker() {
+  }
+
+  /**
+   * @param checkpoint run every {@link #CHECKPOINT_INTERVAL} nodes entered by a walk, counted separately for each walk
+   *                   of the current thread: exceptions it throws end the walk; null to remove the checkpoint of the current thread
+   */
+  public static void setCheckpoint(@Nullable Runnable checkpoint) {
+    if (checkpoint == null) {
+      CHECKPOINT.remove();
+    } else {
+      CHECKPOINT.set(checkpoint);
+    }
+  }
+
+  public static void walk(Tree root, Listener listener) {
+    Runnable checkpoint = CHECKPOINT.get();
+    int entered = 0;
+    Tree[] trees = new Tree[INITIAL_DEPTH];
+    // remaining children to walk for each tree of the stack
+    Iterator<?>[] children = new Iterator<?>[INITIAL_DEPTH];
+    int top = 0;
+
+    listener.enter(root);
+    trees[top] = root;
+    children[top] = childrenIterator(root);
+    top++;
+
+    while (top > 0) {
+      Tree child = nextChild(children[top - 1]);
+
+      if (child != null) {
+        entered++;
+        if (checkpoint != null && entered % CHECKPOINT_INTERVAL == 0) {
+          checkpoint.run();
+        }
+        listener.enter(child);
+
+        if (top == trees.length) {
+          trees = Arrays.copyOf(trees, top * 2);
+          children = Arrays.copyOf(children, top * 2);
+        }
+        trees[top] = child;
+        children[top] = childrenIterator(child);
+        top++;
+
+      } else {
+        top--;
+        Tree tree = trees[top];
+        trees[top] = null;
+        children[top] = null;
+        listener.leave(tree);
+      }
+    }
+  }
+
+  private static Iterator<Tree> childrenIterator(Tree tree) {
+    JavaScriptTree javaScriptTree = (JavaScriptTree) tree;
+    return javaScriptTree.isLeaf() ? Collections.<Tree>emptyIterator() : javaScriptTree.childrenIterator();
+  }
+
+  /**
+   * @return the next non null child, null if there is none left
+   */
+  @Nullable
+  private static Tree nextChild(Iterator<?> children) {
+    while (children.hasNext()) {
+      Tree child = (Tree) children.next();
+      if (child != null) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+}
@@ -29,21 +29,21 @@ import java.util.Set;
 @Beta
 public interface SymbolModel {
   /**
-   * Returns all symbols in script
+   * Returns all symbols in script, as an unmodifiable set
    */
   Set<Symbol> getSymbols();
 
   /**
    *
    * @param kind kind of symbols to look for
-   * @return list of symbols with the given kind
+   * @return unmodifiable set of symbols with the given kind
    */
   Set<Symbol> getSymbols(Symbol.Kind kind);
 
   /**
    *
    * @param name name of symbols to look for
-   * @return list of symbols with the given name
+   * @return unmodifiable set of symbols with the given name
    */
   Set<Symbol> getSymbols(String name);
 
@@ -24,6 +24,7 @@ import com.google.common.io.Files;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.source.Symbolizable;
+import org.sonar.javascript.tree.SourceBuffer;
 import org.sonar.javascript.tree.symbols.SymbolModelImpl;
 import org.sonar.javascript.utils.JavaScriptTreeModelTest;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
@@ -58,7 +59,7 @@ public class HighlightSymbolTableBuilderTest extends JavaScriptTreeModelTest {
   public void sonar_symbol_table() throws Exception {
     File file = new File("src/test/resources/highlighter/symbolHighlighting.js");
     lines = Files.readLines(file, Charsets.UTF_8);
-    SymbolModelImpl.create((ScriptTree) p.parse(file), symbolizable, new SourceFileOffsets(file, Charset.defaultCharset()), null);
+    SymbolModelImpl.create((ScriptTree) p.parse(file), symbolizable, SourceBuffer.read(file, Charset.defaultCharset()).offsets(), null);
 
     // variable
     verify(symbolTableBuilder).newSymbol(offset(1, 5), offset(1, 6));
@@ -90,7 +91,7 @@ public class HighlightSymbolTableBuilderTest extends JavaScriptTreeModelTest {
   @Test
   public void sonar_symbol_table_built_in() throws Exception {
     File file = new File("src/test/resources/highlighter/symbolHighlightingBuiltIn.js");
-    SymbolModelImpl.create((ScriptTree) p.parse(file), symbolizable, new SourceFileOffsets(file, Charset.defaultCharset()), null);
+    SymbolModelImpl.create((ScriptTree) p.parse(file), symbolizable, SourceBuffer.read(file, Charset.defaultCharset()).offsets(), null);
 
     // no offsets are used as there is uncertainty about the order of usages of built-in symbols (and first usage used for newSymbol)
     verify(symbolTableBuilder, times(3)).newSymbol(anyInt(), anyInt());
@@ -28,6 +28,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.component.ResourcePerspectives;
 import org.sonar.api.source.Highlightable;
 import org.sonar.api.source.Highlightable.HighlightingBuilder;
+import org.sonar.javascript.tree.visitors.FileContext;
 import org.sonar.javascript.utils.JavaScriptTreeModelTest;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
@@ -41,6 +42,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class HighlighterVisitorTest extends JavaScriptTreeModelTest {
 
@@ -63,7 +65,7 @@ public class HighlighterVisitorTest extends JavaScriptTreeModelTest {
     ResourcePerspectives resourcePerspectives = mock(ResourcePerspectives.class);
     Highlightable highlightable = mock(Highlightable.class);
     highlightingBuilder = mock(HighlightingBuilder.class);
-    visitorContext = mock(TreeVisitorContext.class);
+    visitorContext = mock(TreeVisitorContext.class, withSettings().extraInterfaces(FileContext.class));
 
     highlighterVisitor = new HighlighterVisitor(resourcePerspectives, fileSystem);
 
@@ -75,6 +77,7 @@ public class HighlighterVisitorTest extends JavaScriptTreeModelTest {
   private void highlight(String string) throws Exception{
     Tree tree = p.parse(string);
     when(visitorContext.getTopTree()).thenReturn((ScriptTree) tree);
+    when(((FileContext) visitorContext).getFileContent()).thenReturn(string);
     highlighterVisitor.scanFile(visitorContext);
     verify(highlightingBuilder).done();
   }
@@ -51,4 +51,23 @@ public class SourceFileOffsetsTest {
     assertThat(offsets.startOffset(tokens.get(2))).isEqualTo(12);
     assertThat(offsets.endOffset(tokens.get(2))).isEqualTo(13);
   }
+
+  @Test
+  public void line_and_column_of_offset() {
+    SourceFileOffsets offsets = new SourceFileOffsets("ab\ncd\r\n\ref");
+    assertThat(offsets.linesCount()).isEqualTo(4);
+    assertThat(offsets.line(0)).isEqualTo(1);
+    assertThat(offsets.line(2)).isEqualTo(1);
+    assertThat(offsets.line(3)).isEqualTo(2);
+    assertThat(offsets.column(4)).isEqualTo(1);
+    assertThat(offsets.line(7)).isEqualTo(3);
+    assertThat(offsets.line(8)).isEqualTo(4);
+    assertThat(offsets.column(9)).isEqualTo(1);
+    assertThat(offsets.line(10)).isEqualTo(4);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void offset_out_of_file() {
+    new SourceFileOffsets("ab").line(3);
+  }
 }
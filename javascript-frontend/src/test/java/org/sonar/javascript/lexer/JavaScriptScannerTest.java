@@ -0,0 +1,123 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.lexer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.Lexer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaScriptScannerTest {
+
+  private static Lexer lexer;
+
+  @BeforeClass
+  public static void init() {
+    lexer = JavaScriptLexer.create(Charsets.UTF_8);
+  }
+
+  @Test
+  public void same_tokens_as_lexer_on_sources() throws Exception {
+    List<File> files = new ArrayList<>();
+    addJavaScriptFiles(new File("src/test/resources"), files);
+    // sources of the integration tests, when checked out
+    addJavaScriptFiles(new File("../its/sources"), files);
+    assertThat(files).isNotEmpty();
+
+    for (File file : files) {
+      assertSameTokens(Files.toString(file, Charsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void same_tokens_as_lexer() {
+    // regular expressions and divisions
+    assertSameTokens("a / b / c; x = /ab[/]c\\/d/gi; y");
+    assertSameTokens("if (x) /re/.test(y); return /a/; a++ / 2; } /x/");
+    assertSameTokens("/[/\n]/ /a\nb/ /\\\n/ /");
+    assertSameTokens("x = 1 /* comment */ / 2");
+
+    // numbers
+    assertSameTokens("1.e5 .5e-3f 0x1F.fp2 0xAL 0b101 0b2 1e 1e+ 1e+_ 1f 2d 3L 08 1.2.3 0x 0xp");
+
+    // strings
+    assertSameTokens("'a\\'b' \"c\\\n d\"");
+    assertSameTokens("'unterminated");
+    assertSameTokens("\"\\");
+
+    // comments and line terminators
+    assertSameTokens("/* unterminated");
+    assertSameTokens("<!-- html\nx // comment\r\ny\r\nz\u2028w");
+
+    // identifiers and whitespaces
+    assertSameTokens("caf\u00E9 \\u0041bc a\\u00 \u0660x x\u0301 \uD835\uDC00z a\\");
+    assertSameTokens("a\tb\u000Bc\fd\u00A0e\uFEFFf\u3000g");
+
+    // punctuators and unknown characters
+    assertSameTokens("#@ `x` a ?? b ?.c ... >>>= !== =>");
+  }
+
+  @Test
+  public void eof() {
+    List<Token> tokens = JavaScriptScanner.scan("a\n", null);
+    assertThat(tokens).hasSize(2);
+    assertThat(tokens.get(1).getType()).isEqualTo(GenericTokenType.EOF);
+    assertThat(tokens.get(1).getLine()).isEqualTo(2);
+    assertThat(tokens.get(1).getColumn()).isEqualTo(0);
+  }
+
+  private static void assertSameTokens(String source) {
+    List<Token> expected = lexer.lex(source);
+    List<Token> actual = JavaScriptScanner.scan(source, null);
+    assertThat(toString(actual)).as(source).isEqualTo(toString(expected));
+  }
+
+  private static List<String> toString(List<Token> tokens) {
+    List<String> result = new ArrayList<>();
+    for (Token token : tokens) {
+      result.add(token.getType() + " " + token.getValue() + " " + token.getLine() + ":" + token.getColumn());
+    }
+    return result;
+  }
+
+  private static void addJavaScriptFiles(File dir, List<File> files) {
+    File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      if (child.isDirectory()) {
+        addJavaScriptFiles(child, files);
+      } else if (child.getName().endsWith(".js")) {
+        files.add(child);
+      }
+    }
+  }
+
+}
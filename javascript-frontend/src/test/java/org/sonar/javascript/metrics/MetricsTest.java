@@ -21,7 +21,9 @@ package org.sonar.javascript.metrics;
 
 import org.junit.Test;
 import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.declaration.FunctionDeclarationTree;
 
 import java.io.File;
 
@@ -36,6 +38,24 @@ public class MetricsTest extends JavaScriptTreeModelTest {
     assertThat(new ComplexityVisitor().getComplexity(tree)).isEqualTo(20);
   }
 
+  @Test
+  public void memoized_complexity() {
+    ScriptTree tree = (ScriptTree) p.parse("function f(a) { if (a) { return function (b) { return b && a; }; } }");
+    FunctionDeclarationTree function = (FunctionDeclarationTree) tree.items().items().get(0);
+    Tree ifStatement = function.body().statements().get(0);
+
+    ComplexityVisitor complexityVisitor = new ComplexityVisitor();
+    complexityVisitor.memoize(tree);
+
+    assertThat(complexityVisitor.getComplexity(tree)).isEqualTo(new ComplexityVisitor().getComplexity(tree));
+    assertThat(complexityVisitor.getComplexity(function)).isEqualTo(new ComplexityVisitor().getComplexity(function));
+    // not memoized
+    assertThat(complexityVisitor.getComplexity(ifStatement)).isEqualTo(new ComplexityVisitor().getComplexity(ifStatement));
+
+    complexityVisitor.clearMemoized();
+    assertThat(complexityVisitor.getComplexity(function)).isEqualTo(new ComplexityVisitor().getComplexity(function));
+  }
+
   @Test
   public void lines_of_code() {
     String path = "src/test/resources/metrics/lines_of_code.js";
@@ -0,0 +1,61 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.parser;
+
+import org.junit.Test;
+import org.sonar.javascript.lexer.JavaScriptKeyword;
+import org.sonar.javascript.lexer.JavaScriptPunctuator;
+import org.sonar.javascript.tree.TreeKindIndex;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaScriptNodeBuilderTest extends JavaScriptTreeModelTest {
+
+  @Test
+  public void token_texts_are_interned() throws Exception {
+    // function foo ( ) { foo ; } EOF
+    List<Tree> tokens = new TreeKindIndex(p.parse("function foo() { foo; }")).nodes(Kind.TOKEN);
+
+    assertThat(text(tokens, 0)).isSameAs(JavaScriptKeyword.FUNCTION.getValue());
+    assertThat(text(tokens, 2)).isSameAs(JavaScriptPunctuator.LPARENTHESIS.getValue());
+    assertThat(text(tokens, 5)).isEqualTo("foo");
+    assertThat(text(tokens, 5)).isSameAs(text(tokens, 1));
+  }
+
+  @Test
+  public void tokens_without_trivia_share_an_empty_list() throws Exception {
+    List<Tree> tokens = new TreeKindIndex(p.parse("/* comment */ a = b;")).nodes(Kind.TOKEN);
+
+    assertThat(((SyntaxToken) tokens.get(0)).trivias()).hasSize(1);
+    assertThat(((SyntaxToken) tokens.get(1)).trivias()).isEmpty();
+    assertThat(((SyntaxToken) tokens.get(1)).trivias()).isSameAs(((SyntaxToken) tokens.get(2)).trivias());
+  }
+
+  private static String text(List<Tree> tokens, int index) {
+    return ((SyntaxToken) tokens.get(index)).text();
+  }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SourceBufferTest {
+
+  @Test
+  public void lines() {
+    assertThat(new SourceBuffer(new File(""), "").lines()).isEmpty();
+    assertThat(new SourceBuffer(new File(""), "a\nb\r\nc\rd").lines()).containsExactly("a", "b", "c", "d");
+    assertThat(new SourceBuffer(new File(""), "a\n\n").lines()).containsExactly("a", "");
+  }
+
+  @Test
+  public void read() {
+    File file = new File("src/test/resources/metrics/lines.js");
+    SourceBuffer source = SourceBuffer.read(file, Charsets.UTF_8);
+
+    assertThat(source.file()).isSameAs(file);
+    assertThat(source.offsets()).isSameAs(source.offsets());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unreadable_file() {
+    SourceBuffer.read(new File("unknown.js"), Charsets.UTF_8);
+  }
+
+}
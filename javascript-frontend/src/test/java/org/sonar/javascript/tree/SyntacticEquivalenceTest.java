@@ -21,6 +21,7 @@ package org.sonar.javascript.tree;
 
 import static org.fest.assertions.Assertions.assertThat;
 
+import com.google.common.base.Strings;
 import org.junit.Test;
 import org.sonar.javascript.utils.JavaScriptTreeModelTest;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
@@ -81,6 +82,35 @@ public class SyntacticEquivalenceTest extends JavaScriptTreeModelTest {
     assertThat(SyntacticEquivalence.areEquivalent(tree1, tree2)).isFalse();
   }
 
+  @Test
+  public void syntactic_hash() throws Exception {
+    Tree tree1 = parse("if (a) { b = c + 1; }", Tree.Kind.IF_STATEMENT);
+    Tree tree2 = parse("if (a) { b = c + 1; }", Tree.Kind.IF_STATEMENT);
+    Tree tree3 = parse("if (a) { b = c + 2; }", Tree.Kind.IF_STATEMENT);
+
+    assertThat(SyntacticEquivalence.syntacticHash(tree1)).isEqualTo(SyntacticEquivalence.syntacticHash(tree2));
+    assertThat(SyntacticEquivalence.syntacticHash(tree1)).isNotEqualTo(SyntacticEquivalence.syntacticHash(tree3));
+    assertThat(SyntacticEquivalence.syntacticHash((Tree) null)).isEqualTo(0);
+
+    ParameterListTree list1 = parse("f(a, b) ;", Tree.Kind.ARGUMENTS);
+    ParameterListTree list2 = parse("f(a, b) ;", Tree.Kind.ARGUMENTS);
+    ParameterListTree list3 = parse("f(b, a) ;", Tree.Kind.ARGUMENTS);
+
+    assertThat(SyntacticEquivalence.syntacticHash(list1.parameters())).isEqualTo(SyntacticEquivalence.syntacticHash(list2.parameters()));
+    assertThat(SyntacticEquivalence.syntacticHash(list1.parameters())).isNotEqualTo(SyntacticEquivalence.syntacticHash(list3.parameters()));
+  }
+
+  @Test
+  public void syntactic_hash_of_deeply_nested_tree() throws Exception {
+    String source = "x = a" + Strings.repeat(" + a", 19999) + ";";
+    Tree tree1 = p.parse(source);
+    Tree tree2 = p.parse(source);
+    Tree tree3 = p.parse(source.replace("x = ", "y = "));
+
+    assertThat(SyntacticEquivalence.syntacticHash(tree1)).isEqualTo(SyntacticEquivalence.syntacticHash(tree2));
+    assertThat(SyntacticEquivalence.syntacticHash(tree1)).isNotEqualTo(SyntacticEquivalence.syntacticHash(tree3));
+  }
+
   @Test(expected=IllegalArgumentException.class)
   public void test_are_leafs_with_other_than_leaf() throws Exception {
     JavaScriptTree tree1 = parse("true;", Tree.Kind.SCRIPT);
@@ -0,0 +1,69 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree;
+
+import org.junit.Test;
+import org.sonar.javascript.tree.impl.lexical.InternalSyntaxToken;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+import org.sonar.plugins.javascript.api.tree.expression.IdentifierTree;
+import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TreeKindIndexTest extends JavaScriptTreeModelTest {
+
+  @Test
+  public void nodes_by_kind_in_document_order() {
+    TreeKindIndex index = new TreeKindIndex(p.parse("a(b); if (c) { d(e(f)); }"));
+
+    List<Tree> calls = index.nodes(Kind.CALL_EXPRESSION);
+    assertThat(calls).hasSize(3);
+
+    List<Tree> identifiers = index.nodes(Kind.IDENTIFIER_REFERENCE);
+    assertThat(identifiers).hasSize(6);
+    StringBuilder names = new StringBuilder();
+    for (Tree identifier : identifiers) {
+      names.append(((IdentifierTree) identifier).name());
+    }
+    assertThat(names.toString()).isEqualTo("abcdef");
+
+    List<Tree> tokens = index.nodes(Kind.TOKEN);
+    assertThat(((SyntaxToken) tokens.get(0)).text()).isEqualTo("a");
+    assertThat(((SyntaxToken) tokens.get(1)).text()).isEqualTo("(");
+    assertThat(((InternalSyntaxToken) tokens.get(tokens.size() - 1)).isEOF()).isTrue();
+
+    assertThat(index.nodes(Kind.WHILE_STATEMENT)).isEmpty();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void unmodifiable() {
+    new TreeKindIndex(p.parse("a;")).nodes(Kind.TOKEN).clear();
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void out_of_bounds() {
+    new TreeKindIndex(p.parse("a;")).nodes(Kind.WHILE_STATEMENT).get(0);
+  }
+
+}
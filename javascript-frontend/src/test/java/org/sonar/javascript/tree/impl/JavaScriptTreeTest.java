@@ -0,0 +1,94 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.impl;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.sonar.javascript.tree.impl.statement.IfStatementTreeImpl;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.ScriptTree;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+import org.sonar.plugins.javascript.api.tree.declaration.FunctionDeclarationTree;
+import org.sonar.plugins.javascript.api.tree.expression.ArrowFunctionTree;
+import org.sonar.plugins.javascript.api.tree.expression.AssignmentExpressionTree;
+import org.sonar.plugins.javascript.api.tree.statement.BlockTree;
+import org.sonar.plugins.javascript.api.tree.statement.ExpressionStatementTree;
+import org.sonar.plugins.javascript.api.tree.statement.TryStatementTree;
+import org.sonar.plugins.javascript.api.tree.statement.WhileStatementTree;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaScriptTreeTest extends JavaScriptTreeModelTest {
+
+  @Test
+  public void indexed_children() throws Exception {
+    IfStatementTreeImpl tree = parse("if (a) {}", Kind.IF_STATEMENT);
+
+    List<Tree> children = Lists.newArrayList(tree.childrenIterator());
+    assertThat(tree.childCount()).isEqualTo(children.size());
+    for (int i = 0; i < tree.childCount(); i++) {
+      assertThat(tree.child(i)).isSameAs(children.get(i));
+    }
+    // no else clause
+    assertThat(tree.child(tree.childCount() - 1)).isNull();
+
+    assertThat(((JavaScriptTree) tree.ifKeyword()).childCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void first_and_last_tokens() throws Exception {
+    IfStatementTreeImpl tree = parse("if (a) {}", Kind.IF_STATEMENT);
+
+    assertThat(tree.getFirstToken().text()).isEqualTo("if");
+    assertThat(tree.getLastToken().text()).isEqualTo("}");
+    assertThat(tree.getFirstToken()).isSameAs(tree.ifKeyword());
+    assertThat(tree.getLastToken()).isSameAs(tree.getLastToken());
+    assertThat(tree.getLine()).isEqualTo(1);
+  }
+
+  @Test
+  public void parents() throws Exception {
+    ScriptTree script = (ScriptTree) p.parse("function f() { while (a) { try {} catch (e) { x = () => b; } } }");
+    FunctionDeclarationTree function = (FunctionDeclarationTree) script.items().items().get(0);
+    WhileStatementTree loop = (WhileStatementTree) function.body().statements().get(0);
+    TryStatementTree tryStatement = (TryStatementTree) ((BlockTree) loop.statement()).statements().get(0);
+    ExpressionStatementTree statement = (ExpressionStatementTree) tryStatement.catchBlock().block().statements().get(0);
+    JavaScriptTree arrowBody = (JavaScriptTree) ((ArrowFunctionTree) ((AssignmentExpressionTree) statement.expression()).expression()).conciseBody();
+
+    assertThat(((JavaScriptTree) script).parent()).isNull();
+    assertThat(((JavaScriptTree) function).parent()).isSameAs(script.items());
+    assertThat(((JavaScriptTree) function.name()).parent()).isSameAs(function);
+
+    assertThat(arrowBody.enclosingFunction().is(Kind.ARROW_FUNCTION)).isTrue();
+    assertThat(arrowBody.enclosingLoop()).isSameAs(loop);
+    assertThat(((JavaScriptTree) statement).enclosingScope()).isSameAs(tryStatement.catchBlock());
+    assertThat(((JavaScriptTree) statement).enclosingFunction()).isSameAs(function);
+    assertThat(((JavaScriptTree) function).enclosingScope()).isSameAs(script);
+    assertThat(((JavaScriptTree) script).enclosingFunction()).isNull();
+
+    assertThat(Iterables.getLast(arrowBody.ancestors())).isSameAs(script);
+    assertThat(Iterables.contains(arrowBody.ancestors(), function)).isTrue();
+  }
+
+}
@@ -19,16 +19,21 @@
  */
 package org.sonar.javascript.tree.symbols;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.javascript.utils.JavaScriptTreeModelTest;
 import org.sonar.plugins.javascript.api.symbols.Symbol;
+import org.sonar.plugins.javascript.api.symbols.SymbolModel;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
 
 import java.io.File;
+import java.util.EnumSet;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class SymbolModelImplTest extends JavaScriptTreeModelTest {
 
@@ -49,6 +54,26 @@ public class SymbolModelImplTest extends JavaScriptTreeModelTest {
 
     assertThat(SYMBOL_MODEL.getSymbols("a")).hasSize(3);
     assertThat(SYMBOL_MODEL.getSymbols("arguments")).hasSize(2);
+
+    assertThat(SYMBOL_MODEL.getSymbols(EnumSet.of(Symbol.Kind.FUNCTION, Symbol.Kind.PARAMETER))).hasSize(4);
+    assertThat(SYMBOL_MODEL.getSymbols(EnumSet.noneOf(Symbol.Kind.class))).isEmpty();
+    assertThat(SYMBOL_MODEL.getSymbols("unknown")).isEmpty();
+  }
+
+  @Test
+  public void symbols_of_kinds_of_other_models() {
+    SymbolModel otherModel = mock(SymbolModel.class);
+    Symbol symbol = SYMBOL_MODEL.getSymbols(Symbol.Kind.FUNCTION).iterator().next();
+    when(otherModel.getSymbols(Symbol.Kind.FUNCTION)).thenReturn(ImmutableSet.of(symbol));
+    when(otherModel.getSymbols(Symbol.Kind.PARAMETER)).thenReturn(ImmutableSet.<Symbol>of());
+
+    assertThat(SymbolModelImpl.symbolsOfKinds(otherModel, EnumSet.of(Symbol.Kind.FUNCTION, Symbol.Kind.PARAMETER))).containsOnly(symbol);
+    assertThat(SymbolModelImpl.symbolsOfKinds(SYMBOL_MODEL, EnumSet.of(Symbol.Kind.FUNCTION, Symbol.Kind.PARAMETER))).hasSize(4);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void symbols_are_unmodifiable() {
+    SYMBOL_MODEL.getSymbols(Symbol.Kind.VARIABLE).clear();
   }
 
   @Test
@@ -59,6 +84,27 @@ public class SymbolModelImplTest extends JavaScriptTreeModelTest {
     assertThat(e.scope().tree().is(Tree.Kind.CATCH_BLOCK)).isTrue();
   }
 
+  @Test
+  public void scope_lookup() {
+    Symbol f = (Symbol) SYMBOL_MODEL.getSymbols("f").toArray()[0];
+    assertThat(SYMBOL_MODEL.getScope(f.scope().tree())).isSameAs(f.scope());
+    assertThat(SYMBOL_MODEL.getScope(f.scope().tree())).isSameAs(SYMBOL_MODEL.globalScope());
+  }
 
+  /**
+   * Scope lookup used to go through all the scopes of the file: building the model of this file took seconds.
+   */
+  @Test(timeout = 10000)
+  public void many_functions() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      source.append("function f").append(i).append("(a) { return function () { return a; }; }\n");
+    }
+    SymbolModelImpl symbolModel = SymbolModelImpl.create((ScriptTree) p.parse(source.toString()), null, null, null);
+
+    // global scope, and 2 scopes per line
+    assertThat(symbolModel.getScopes()).hasSize(20001);
+    assertThat(symbolModel.getSymbols(Symbol.Kind.PARAMETER)).hasSize(10000);
+  }
 
 }
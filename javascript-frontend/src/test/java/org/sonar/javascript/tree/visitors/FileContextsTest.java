@@ -0,0 +1,74 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.ScriptTree;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class FileContextsTest extends JavaScriptTreeModelTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void shared_content() throws Exception {
+    TreeVisitorContext context = mock(TreeVisitorContext.class, withSettings().extraInterfaces(FileContext.class));
+    when(((FileContext) context).getFileContent()).thenReturn("var a;\nvar b;");
+    when(((FileContext) context).getFileLines()).thenReturn(ImmutableList.of("var a;", "var b;"));
+
+    assertThat(FileContexts.fileContent(context, Charsets.UTF_8)).isEqualTo("var a;\nvar b;");
+    assertThat(FileContexts.fileLines(context, Charsets.UTF_8)).containsExactly("var a;", "var b;");
+  }
+
+  @Test
+  public void content_read_from_file() throws Exception {
+    File file = temp.newFile("file.js");
+    Files.write("var a;\r\nvar b;", file, Charsets.UTF_8);
+    TreeVisitorContext context = mock(TreeVisitorContext.class);
+    when(context.getFile()).thenReturn(file);
+
+    assertThat(FileContexts.fileContent(context, Charsets.UTF_8)).isEqualTo("var a;\r\nvar b;");
+    assertThat(FileContexts.fileLines(context, Charsets.UTF_8)).containsExactly("var a;", "var b;");
+  }
+
+  @Test
+  public void trees_indexed_from_top_tree() throws Exception {
+    TreeVisitorContext context = mock(TreeVisitorContext.class);
+    when(context.getTopTree()).thenReturn((ScriptTree) p.parse("a; b;"));
+
+    assertThat(FileContexts.treesOfKind(context, Tree.Kind.EXPRESSION_STATEMENT)).hasSize(2);
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sonar.javascript.metrics.MetricsVisitor;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.ScriptTree;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SubscriptionVisitorDispatcherTest extends JavaScriptTreeModelTest {
+
+  @Test
+  public void dispatch_to_subscribed_visitors() throws Exception {
+    TreeVisitorContext context = context("function f(a) { if (a) { return a; } }");
+
+    CountingVisitor functions = new CountingVisitor(Kind.FUNCTION_DECLARATION);
+    CountingVisitor statements = new CountingVisitor(Kind.IF_STATEMENT, Kind.RETURN_STATEMENT);
+    new SubscriptionVisitorDispatcher(ImmutableList.<SubscriptionAstTreeVisitor>of(functions, statements)).scanFile(context);
+
+    assertThat(functions.files).isEqualTo(1);
+    assertThat(functions.visited).isEqualTo(1);
+    assertThat(functions.left).isEqualTo(1);
+    assertThat(statements.visited).isEqualTo(2);
+    assertThat(statements.left).isEqualTo(2);
+    assertThat(statements.getContext()).isSameAs(context);
+  }
+
+  @Test
+  public void same_result_as_separate_scan() throws Exception {
+    TreeVisitorContext context = context("var a = b + c; function f() { return a && b || c; }");
+
+    CountingVisitor dispatched = new CountingVisitor(Kind.TOKEN, Kind.CONDITIONAL_AND);
+    new SubscriptionVisitorDispatcher(ImmutableList.<SubscriptionAstTreeVisitor>of(dispatched)).scanFile(context);
+
+    CountingVisitor scanned = new CountingVisitor(Kind.TOKEN, Kind.CONDITIONAL_AND);
+    scanned.scanFile(context);
+
+    assertThat(dispatched.visited).isEqualTo(scanned.visited);
+    assertThat(dispatched.left).isEqualTo(scanned.left);
+  }
+
+  @Test
+  public void can_dispatch() throws Exception {
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(new CountingVisitor(Kind.TOKEN))).isTrue();
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(new MetricsVisitor(null, null, null, false, null))).isFalse();
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(new BaseTreeVisitor())).isFalse();
+  }
+
+  @Test
+  public void cannot_dispatch_visitors_overriding_the_traversal() throws Exception {
+    SubscriptionAstTreeVisitor scanTree = new CountingVisitor(Kind.TOKEN) {
+      @Override
+      protected void scanTree(Tree tree) {
+        // only visits the script itself
+        visitNode(tree);
+      }
+    };
+    SubscriptionAstTreeVisitor isSubscribed = new CountingVisitor(Kind.TOKEN) {
+      @Override
+      protected boolean isSubscribed(Tree tree) {
+        return false;
+      }
+    };
+
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(scanTree)).isFalse();
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(isSubscribed)).isFalse();
+    assertThat(SubscriptionVisitorDispatcher.canDispatch(new CountingVisitor(Kind.TOKEN) {
+    })).isTrue();
+  }
+
+  private TreeVisitorContext context(String source) {
+    TreeVisitorContext context = mock(TreeVisitorContext.class);
+    when(context.getTopTree()).thenReturn((ScriptTree) p.parse(source));
+    return context;
+  }
+
+  private static class CountingVisitor extends SubscriptionAstTreeVisitor {
+
+    private final List<Kind> kinds;
+    private int files = 0;
+    private int visited = 0;
+    private int left = 0;
+
+    CountingVisitor(Kind... kinds) {
+      this.kinds = ImmutableList.copyOf(kinds);
+    }
+
+    @Override
+    public List<Kind> nodesToVisit() {
+      return kinds;
+    }
+
+    @Override
+    public void visitFile(Tree scriptTree) {
+      files++;
+    }
+
+    @Override
+    public void visitNode(Tree tree) {
+      visited++;
+    }
+
+    @Override
+    public void leaveNode(Tree tree) {
+      left++;
+    }
+  }
+
+}
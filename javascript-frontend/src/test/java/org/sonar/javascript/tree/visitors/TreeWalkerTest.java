@@ -0,0 +1,140 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.javascript.tree.visitors;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.javascript.utils.JavaScriptTreeModelTest;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TreeWalkerTest extends JavaScriptTreeModelTest {
+
+  @Test
+  public void same_order_as_recursive_walk() throws Exception {
+    Tree tree = p.parse("var a = b + c; function f(x) { if (x) { return [x, , 1]; } }");
+
+    RecordingListener listener = new RecordingListener();
+    TreeWalker.walk(tree, listener);
+
+    List<String> expected = new ArrayList<>();
+    recursiveWalk(tree, expected);
+    assertThat(listener.events).isEqualTo(expected);
+    assertThat(listener.events.get(0)).isEqualTo("enter SCRIPT");
+    assertThat(listener.events.get(listener.events.size() - 1)).isEqualTo("leave SCRIPT");
+  }
+
+  @Test
+  public void deeply_nested_tree() throws Exception {
+    int operands = 20000;
+    Tree tree = p.parse("x = a" + Strings.repeat(" + a", operands - 1) + ";");
+
+    RecordingListener listener = new RecordingListener();
+    TreeWalker.walk(tree, listener);
+
+    int plus = 0;
+    for (String event : listener.events) {
+      if (event.equals("enter " + Kind.PLUS)) {
+        plus++;
+      }
+    }
+    assertThat(plus).isEqualTo(operands - 1);
+    assertThat(listener.maxDepth).isGreaterThan(operands);
+  }
+
+  @Test
+  public void checkpoint() throws Exception {
+    Tree tree = p.parse("x = a" + Strings.repeat(" + a", TreeWalker.CHECKPOINT_INTERVAL) + ";");
+    final int[] checkpoints = {0};
+    TreeWalker.setCheckpoint(new Runnable() {
+      @Override
+      public void run() {
+        checkpoints[0]++;
+        throw new IllegalStateException("aborted");
+      }
+    });
+
+    RecordingListener listener = new RecordingListener();
+    try {
+      TreeWalker.walk(tree, listener);
+      throw new AssertionError("walk should be aborted");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).isEqualTo("aborted");
+    } finally {
+      TreeWalker.setCheckpoint(null);
+    }
+    assertThat(checkpoints[0]).isEqualTo(1);
+    // the root, then the children entered before the checkpoint
+    assertThat(enterEvents(listener.events)).isEqualTo(TreeWalker.CHECKPOINT_INTERVAL);
+
+    listener = new RecordingListener();
+    TreeWalker.walk(tree, listener);
+    assertThat(enterEvents(listener.events)).isGreaterThan(2 * TreeWalker.CHECKPOINT_INTERVAL);
+  }
+
+  private static int enterEvents(List<String> events) {
+    int enter = 0;
+    for (String event : events) {
+      if (event.startsWith("enter ")) {
+        enter++;
+      }
+    }
+    return enter;
+  }
+
+  private static void recursiveWalk(Tree tree, List<String> events) {
+    JavaScriptTree javaScriptTree = (JavaScriptTree) tree;
+    events.add("enter " + javaScriptTree.getKind());
+    for (int i = 0; i < javaScriptTree.childCount(); i++) {
+      Tree child = javaScriptTree.child(i);
+      if (child != null) {
+        recursiveWalk(child, events);
+      }
+    }
+    events.add("leave " + javaScriptTree.getKind());
+  }
+
+  private static class RecordingListener implements TreeWalker.Listener {
+
+    private final List<String> events = new ArrayList<>();
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    @Override
+    public void enter(Tree tree) {
+      events.add("enter " + ((JavaScriptTree) tree).getKind());
+      depth++;
+      maxDepth = Math.max(depth, maxDepth);
+    }
+
+    @Override
+    public void leave(Tree tree) {
+      events.add("leave " + ((JavaScriptTree) tree).getKind());
+      depth--;
+    }
+  }
+
+}
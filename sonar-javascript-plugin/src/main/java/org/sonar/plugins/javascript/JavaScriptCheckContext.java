@@ -25,6 +25,9 @@ import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issuable.IssueBuilder;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.javascript.metrics.ComplexityVisitor;
+import org.sonar.javascript.tree.SourceBuffer;
+import org.sonar.javascript.tree.TreeKindIndex;
+import org.sonar.javascript.tree.visitors.FileContext;
 import org.sonar.javascript.tree.impl.JavaScriptTree;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
 import org.sonar.plugins.javascript.api.symbols.SymbolModel;
@@ -33,25 +36,38 @@ import org.sonar.plugins.javascript.api.tree.Tree;
 import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
 
 import java.io.File;
+import java.util.List;
 
-public class JavaScriptCheckContext implements TreeVisitorContext {
+public class JavaScriptCheckContext implements TreeVisitorContext, FileContext {
   private final ScriptTree tree;
-  private final File file;
+  private final SourceBuffer source;
   private final SymbolModel symbolModel;
   private final Settings settings;
   private final ComplexityVisitor complexity;
+  private final TreeKindIndex kindIndex;
   private final Issuable issuable;
   private final JavaScriptChecks checks;
 
   public JavaScriptCheckContext(
-    ScriptTree tree, Issuable issuable, File file, SymbolModel symbolModel,
+    ScriptTree tree, Issuable issuable, SourceBuffer source, SymbolModel symbolModel,
     Settings settings, JavaScriptChecks checks, ComplexityVisitor complexityVisitor
+  ) {
+    this(tree, issuable, source, symbolModel, settings, checks, complexityVisitor, new TreeKindIndex(tree));
+  }
+
+  /**
+   * @param kindIndex index of the nodes of the tree, shared by all the contexts of the file
+   */
+  public JavaScriptCheckContext(
+    ScriptTree tree, Issuable issuable, SourceBuffer source, SymbolModel symbolModel,
+    Settings settings, JavaScriptChecks checks, ComplexityVisitor complexityVisitor, TreeKindIndex kindIndex
   ) {
     this.tree = tree;
-    this.file = file;
+    this.source = source;
     this.symbolModel = symbolModel;
     this.settings = settings;
     this.complexity = complexityVisitor;
+    this.kindIndex = kindIndex;
     this.issuable = issuable;
     this.checks = checks;
   }
@@ -88,7 +104,17 @@ public class JavaScriptCheckContext implements TreeVisitorContext {
 
   @Override
   public File getFile() {
-    return file;
+    return source.file();
+  }
+
+  @Override
+  public String getFileContent() {
+    return source.content();
+  }
+
+  @Override
+  public List<String> getFileLines() {
+    return source.lines();
   }
 
   /**
@@ -137,4 +163,9 @@ public class JavaScriptCheckContext implements TreeVisitorContext {
     return complexity.getComplexity(tree);
   }
 
+  @Override
+  public List<Tree> getTreesOfKind(Tree.Kind kind) {
+    return kindIndex.nodes(kind);
+  }
+
 }
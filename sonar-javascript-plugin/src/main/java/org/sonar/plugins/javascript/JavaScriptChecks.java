@@ -25,9 +25,13 @@ import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.plugins.javascript.api.CustomJavaScriptRulesDefinition;
+import org.sonar.plugins.javascript.api.FrontendService;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
+import org.sonar.plugins.javascript.api.RequiresServices;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
@@ -38,6 +42,7 @@ public class JavaScriptChecks {
 
   private final CheckFactory checkFactory;
   private Set<Checks<JavaScriptCheck>> checksByRepository = Sets.newHashSet();
+  private Set<Checks<JavaScriptCheck>> customChecks = Sets.newHashSet();
 
   private JavaScriptChecks(CheckFactory checkFactory) {
     this.checkFactory = checkFactory;
@@ -59,7 +64,11 @@ public class JavaScriptChecks {
     if (customRulesDefinitions != null) {
 
       for (CustomJavaScriptRulesDefinition rulesDefinition : customRulesDefinitions) {
-        addChecks(rulesDefinition.repositoryKey(), Lists.newArrayList(rulesDefinition.checkClasses()));
+        Checks<JavaScriptCheck> checks = checkFactory
+          .<JavaScriptCheck>create(rulesDefinition.repositoryKey())
+          .addAnnotatedChecks(Lists.newArrayList(rulesDefinition.checkClasses()));
+        checksByRepository.add(checks);
+        customChecks.add(checks);
       }
     }
 
@@ -76,6 +85,26 @@ public class JavaScriptChecks {
     return allVisitors;
   }
 
+  /**
+   * @return the services required by the checks, see {@link RequiresServices}
+   */
+  public Set<FrontendService> requiredServices() {
+    Set<FrontendService> services = EnumSet.noneOf(FrontendService.class);
+
+    for (Checks<JavaScriptCheck> checks : checksByRepository) {
+      for (JavaScriptCheck check : checks.all()) {
+        RequiresServices requiresServices = check.getClass().getAnnotation(RequiresServices.class);
+
+        if (requiresServices != null) {
+          services.addAll(Arrays.asList(requiresServices.value()));
+        } else if (customChecks.contains(checks)) {
+          return EnumSet.allOf(FrontendService.class);
+        }
+      }
+    }
+    return services;
+  }
+
   @Nullable
   public RuleKey ruleKeyFor(JavaScriptCheck check) {
     RuleKey ruleKey;
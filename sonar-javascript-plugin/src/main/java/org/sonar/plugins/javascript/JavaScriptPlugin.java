@@ -26,6 +26,7 @@ import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.javascript.tree.symbols.type.JQuery;
 import org.sonar.plugins.javascript.cpd.JavaScriptCpdMapping;
+import org.sonar.plugins.javascript.cpd.JavaScriptCpdTokens;
 import org.sonar.plugins.javascript.lcov.ITCoverageSensor;
 import org.sonar.plugins.javascript.lcov.UTCoverageSensor;
 import org.sonar.plugins.javascript.rules.JavaScriptCommonRulesDecorator;
@@ -67,6 +68,30 @@ public class JavaScriptPlugin extends SonarPlugin {
   // Folder where JsTest unit test reports are located. Feature is not officially supported and not displayed in UI
   public static final String JSTEST_REPORTS_PATH = PROPERTY_PREFIX + ".jstest.reportsPath";
 
+  public static final String THREADS_KEY = PROPERTY_PREFIX + ".threads";
+  public static final String THREADS_DEFAULT_VALUE = "1";
+
+  public static final String CACHE_PATH_KEY = PROPERTY_PREFIX + ".cache.path";
+  public static final String CACHE_PATH_DEFAULT_VALUE = "";
+
+  public static final String PROFILING_KEY = PROPERTY_PREFIX + ".profiling";
+  public static final String PROFILING_DEFAULT_VALUE = "false";
+
+  public static final String MINIFIED_FILES_KEY = PROPERTY_PREFIX + ".minifiedFiles";
+  public static final String MINIFIED_FILES_ANALYSE = "analyse";
+  public static final String MINIFIED_FILES_METRICS = "metrics";
+  public static final String MINIFIED_FILES_SKIP = "skip";
+  public static final String MINIFIED_FILES_DEFAULT_VALUE = MINIFIED_FILES_ANALYSE;
+
+  public static final String KNOWN_LIBRARIES_PATH_KEY = PROPERTY_PREFIX + ".knownLibraries.path";
+  public static final String KNOWN_LIBRARIES_PATH_DEFAULT_VALUE = "";
+
+  public static final String FILE_TIME_BUDGET_KEY = PROPERTY_PREFIX + ".file.timeBudget";
+  public static final String FILE_TIME_BUDGET_DEFAULT_VALUE = "0";
+
+  public static final String FILE_MEMORY_BUDGET_KEY = PROPERTY_PREFIX + ".file.memoryBudget";
+  public static final String FILE_MEMORY_BUDGET_DEFAULT_VALUE = "0";
+
   public static final String JQUERY_OBJECT_ALIASES = JQuery.JQUERY_OBJECT_ALIASES;
   public static final String JQUERY_OBJECT_ALIASES_DEFAULT_VALUE = JQuery.JQUERY_OBJECT_ALIASES_DEFAULT_VALUE;
 
@@ -75,6 +100,7 @@ public class JavaScriptPlugin extends SonarPlugin {
     return ImmutableList.of(
         JavaScriptLanguage.class,
         JavaScriptCpdMapping.class,
+        JavaScriptCpdTokens.class,
 
         JavaScriptSquidSensor.class,
         JavaScriptRulesDefinition.class,
@@ -95,6 +121,81 @@ public class JavaScriptPlugin extends SonarPlugin {
             .subCategory(GENERAL)
             .build(),
 
+        PropertyDefinition.builder(THREADS_KEY)
+            .defaultValue(THREADS_DEFAULT_VALUE)
+            .name("Analysis Threads")
+            .description("Number of threads used to analyse JavaScript files. Values greater than 1 analyse files in parallel.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .type(PropertyType.INTEGER)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(CACHE_PATH_KEY)
+            .defaultValue(CACHE_PATH_DEFAULT_VALUE)
+            .name("Analysis Cache Directory")
+            .description("Path (absolute or relative) to the directory where analysis results are cached between runs. "
+              + "Files whose path, content, rules and settings did not change are not analysed again. "
+              + "Each module has its own subdirectory, whose entries which are not used by the analysis of the module are deleted at its end. "
+              + "Caching is disabled when empty.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(PROFILING_KEY)
+            .defaultValue(PROFILING_DEFAULT_VALUE)
+            .name("Analysis Profiling")
+            .description("Measures the time spent and the memory allocated by each rule and analysis phase. "
+              + "The profile is logged at the end of the analysis and written to javascript-profiling.json in the working directory.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .type(PropertyType.BOOLEAN)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(MINIFIED_FILES_KEY)
+            .defaultValue(MINIFIED_FILES_DEFAULT_VALUE)
+            .name("Minified Files")
+            .description("How minified and generated files are analysed: \"analyse\" like other files, "
+              + "\"metrics\" to only compute their lines and lines of code, or \"skip\" to ignore them. "
+              + "They are recognized from their name, their average line length and their source map comment. "
+              + "With \"metrics\" or \"skip\", the issues of the recognized files are no longer reported.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .type(PropertyType.SINGLE_SELECT_LIST)
+            .options(MINIFIED_FILES_ANALYSE, MINIFIED_FILES_METRICS, MINIFIED_FILES_SKIP)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(FILE_TIME_BUDGET_KEY)
+            .defaultValue(FILE_TIME_BUDGET_DEFAULT_VALUE)
+            .name("File Time Budget")
+            .description("Maximum time in seconds spent parsing and checking a single file. The analysis of a file exceeding it is aborted "
+              + "and reported as a parsing error: no other issue, measure or highlighting is saved for this file, and the analysis "
+              + "goes on with the next file. Since the outcome then depends on the speed of the machine, there is no limit by default (0).")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .type(PropertyType.INTEGER)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(FILE_MEMORY_BUDGET_KEY)
+            .defaultValue(FILE_MEMORY_BUDGET_DEFAULT_VALUE)
+            .name("File Memory Budget")
+            .description("Maximum memory in MB allocated while parsing and checking a single file. The analysis of a file exceeding it is "
+              + "aborted and reported as a parsing error: no other issue, measure or highlighting is saved for this file, and the analysis "
+              + "goes on with the next file. No limit when 0.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .type(PropertyType.INTEGER)
+            .subCategory(GENERAL)
+            .build(),
+
+        PropertyDefinition.builder(KNOWN_LIBRARIES_PATH_KEY)
+            .defaultValue(KNOWN_LIBRARIES_PATH_DEFAULT_VALUE)
+            .name("Known Libraries File")
+            .description("Path (absolute or relative) to a file listing the fingerprints of third-party libraries. No fingerprint "
+              + "is bundled with the plugin. Each line is made of the SHA-1 of a library file, its size in bytes and the name of the library. "
+              + "Exact copies of these libraries are not checked: only their lines are computed.")
+            .onQualifiers(Qualifiers.MODULE, Qualifiers.PROJECT)
+            .subCategory(LIBRARIES)
+            .build(),
+
         PropertyDefinition.builder(LCOV_UT_REPORT_PATH)
             .defaultValue(LCOV_UT_REPORT_PATH_DEFAULT_VALUE)
             .name("Unit Tests LCOV File")
@@ -21,8 +21,14 @@ package org.sonar.plugins.javascript;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.typed.ActionParser;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.DependedUpon;
@@ -38,13 +44,23 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.source.Highlightable;
+import org.sonar.api.source.Highlightable.HighlightingBuilder;
 import org.sonar.api.source.Symbolizable;
+import org.sonar.javascript.lexer.JavaScriptScanner;
 import org.sonar.javascript.parser.JavaScriptParserBuilder;
+import org.sonar.javascript.tree.SourceBuffer;
+import org.sonar.javascript.tree.TreeKindIndex;
 import org.sonar.javascript.tree.visitors.CharsetAwareVisitor;
+import org.sonar.javascript.tree.visitors.SubscriptionAstTreeVisitor;
+import org.sonar.javascript.tree.visitors.SubscriptionVisitorDispatcher;
+import org.sonar.javascript.tree.visitors.TreeWalker;
 import org.sonar.javascript.tree.symbols.SymbolModelImpl;
 import org.sonar.javascript.checks.CheckList;
 import org.sonar.javascript.checks.ParsingErrorCheck;
@@ -53,17 +69,45 @@ import org.sonar.javascript.highlighter.SourceFileOffsets;
 import org.sonar.javascript.metrics.ComplexityVisitor;
 import org.sonar.javascript.metrics.MetricsVisitor;
 import org.sonar.plugins.javascript.api.CustomJavaScriptRulesDefinition;
+import org.sonar.plugins.javascript.api.FrontendService;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
 import org.sonar.plugins.javascript.api.tree.ScriptTree;
 import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.visitors.TreeVisitorContext;
+import org.sonar.plugins.javascript.cache.AnalysisCache;
+import org.sonar.plugins.javascript.cache.FileAnalysisRecord;
+import org.sonar.plugins.javascript.cache.KnownLibraries;
+import org.sonar.plugins.javascript.cache.RecordingIssuable;
+import org.sonar.plugins.javascript.cpd.JavaScriptCpdTokens;
+import org.sonar.plugins.javascript.minified.MinifiedFileDetector;
+import org.sonar.plugins.javascript.profiling.AnalysisProfiler;
+import org.sonar.plugins.javascript.profiling.FileBudget;
 import org.sonar.squidbridge.ProgressReport;
 import org.sonar.squidbridge.api.AnalysisException;
 
 import javax.annotation.Nullable;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class JavaScriptSquidSensor implements Sensor {
 
@@ -75,6 +119,11 @@ public class JavaScriptSquidSensor implements Sensor {
 
   private static final Logger LOG = LoggerFactory.getLogger(JavaScriptSquidSensor.class);
 
+  private static final String PROFILING_REPORT = "javascript-profiling.json";
+  private static final int PROFILING_SUMMARY_SIZE = 10;
+
+  private final CheckFactory checkFactory;
+  private final CustomJavaScriptRulesDefinition[] customRulesDefinition;
   private final JavaScriptChecks checks;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final ResourcePerspectives resourcePerspectives;
@@ -83,8 +132,22 @@ public class JavaScriptSquidSensor implements Sensor {
   private final FilePredicate mainFilePredicate;
   private final Settings settings;
   private final ActionParser<Tree> parser;
-  // parsingErrorRuleKey equals null if ParsingErrorCheck is not activated
-  private RuleKey parsingErrorRuleKey = null;
+  // Batch APIs (issues, measures, highlighting) are not thread-safe: every write goes through this lock
+  private final Object publishLock = new Object();
+  // tokens of the parsed files, handed over to the duplication detection
+  private final JavaScriptCpdTokens cpdTokens;
+  // null if caching is disabled
+  private AnalysisCache cache = null;
+  // null if profiling is disabled
+  private AnalysisProfiler profiler = null;
+  // fingerprints of the third-party libraries which are not checked, null if none are supplied
+  private KnownLibraries knownLibraries = null;
+  // one of the JavaScriptPlugin.MINIFIED_FILES_* values
+  private String minifiedFiles = JavaScriptPlugin.MINIFIED_FILES_DEFAULT_VALUE;
+  // time and memory allowed for the analysis of each file
+  private FileBudget budget = new FileBudget(0, 0);
+  // set once parsing is no longer limited in time because too many abandoned parses are still running
+  private final AtomicBoolean abandonedParsesWarned = new AtomicBoolean();
 
   public JavaScriptSquidSensor(CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory,
                                ResourcePerspectives resourcePerspectives, FileSystem fileSystem, NoSonarFilter noSonarFilter, Settings settings) {
@@ -94,10 +157,16 @@ public class JavaScriptSquidSensor implements Sensor {
   public JavaScriptSquidSensor(CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory,
                                ResourcePerspectives resourcePerspectives, FileSystem fileSystem, NoSonarFilter noSonarFilter,
                                Settings settings, @Nullable CustomJavaScriptRulesDefinition[] customRulesDefinition) {
+    this(checkFactory, fileLinesContextFactory, resourcePerspectives, fileSystem, noSonarFilter, settings, customRulesDefinition, new JavaScriptCpdTokens());
+  }
 
-    this.checks = JavaScriptChecks.createJavaScriptCheck(checkFactory)
-        .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
-        .addCustomChecks(customRulesDefinition);
+  public JavaScriptSquidSensor(CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory,
+                               ResourcePerspectives resourcePerspectives, FileSystem fileSystem, NoSonarFilter noSonarFilter,
+                               Settings settings, @Nullable CustomJavaScriptRulesDefinition[] customRulesDefinition, JavaScriptCpdTokens cpdTokens) {
+
+    this.checkFactory = checkFactory;
+    this.customRulesDefinition = customRulesDefinition;
+    this.checks = createChecks();
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.resourcePerspectives = resourcePerspectives;
     this.fileSystem = fileSystem;
@@ -107,6 +176,13 @@ public class JavaScriptSquidSensor implements Sensor {
         fileSystem.predicates().hasLanguage(JavaScriptLanguage.KEY));
     this.settings = settings;
     this.parser = JavaScriptParserBuilder.createParser(fileSystem.encoding());
+    this.cpdTokens = cpdTokens;
+  }
+
+  private JavaScriptChecks createChecks() {
+    return JavaScriptChecks.createJavaScriptCheck(checkFactory)
+        .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
+        .addCustomChecks(customRulesDefinition);
   }
 
   @Override
@@ -116,83 +192,140 @@ public class JavaScriptSquidSensor implements Sensor {
 
   @Override
   public void analyse(Project project, SensorContext context) {
-    List<JavaScriptCheck> treeVisitors = Lists.newArrayList();
+    List<InputFile> inputFiles = Lists.newArrayList(fileSystem.inputFiles(mainFilePredicate));
 
-    treeVisitors.add(new MetricsVisitor(fileSystem, context, noSonarFilter,
-    /* FIXME with SONARJS-203: ignore header comments*/ false, fileLinesContextFactory));
-    treeVisitors.add(new HighlighterVisitor(resourcePerspectives, fileSystem));
-    treeVisitors.addAll(checks.all());
+    ProgressReport progressReport = new ProgressReport("Report about progress of Javascript analyzer", TimeUnit.SECONDS.toMillis(10));
+    progressReport.start(Lists.newArrayList(fileSystem.files(mainFilePredicate)));
 
-    for (JavaScriptCheck check : treeVisitors) {
-      if (check instanceof ParsingErrorCheck) {
-        parsingErrorRuleKey = checks.ruleKeyFor(check);
-        break;
-      }
+    String cachePath = settings.getString(JavaScriptPlugin.CACHE_PATH_KEY);
+    if (StringUtils.isNotBlank(cachePath)) {
+      File cacheDirectory = resolve(cachePath);
+      LOG.info("Using JavaScript analysis cache: " + cacheDirectory);
+      cache = new AnalysisCache(AnalysisCache.moduleDirectory(cacheDirectory, project.getKey()), AnalysisCache.analysisKey(settings, fileSystem.encoding(), checks));
     }
 
-    ProgressReport progressReport = new ProgressReport("Report about progress of Javascript analyzer", TimeUnit.SECONDS.toMillis(10));
-    progressReport.start(Lists.newArrayList(fileSystem.files(mainFilePredicate)));
+    if (settings.getBoolean(JavaScriptPlugin.PROFILING_KEY)) {
+      profiler = new AnalysisProfiler();
+    }
 
-    for (InputFile inputFile : fileSystem.inputFiles(mainFilePredicate)) {
-      analyse(inputFile, treeVisitors);
-      progressReport.nextFile();
+    String knownLibrariesPath = settings.getString(JavaScriptPlugin.KNOWN_LIBRARIES_PATH_KEY);
+    knownLibraries = StringUtils.isBlank(knownLibrariesPath) ? null : KnownLibraries.load(resolve(knownLibrariesPath));
+    minifiedFiles = StringUtils.defaultIfBlank(settings.getString(JavaScriptPlugin.MINIFIED_FILES_KEY), JavaScriptPlugin.MINIFIED_FILES_DEFAULT_VALUE);
+    budget = new FileBudget(
+      TimeUnit.SECONDS.toMillis(settings.getInt(JavaScriptPlugin.FILE_TIME_BUDGET_KEY)),
+      settings.getInt(JavaScriptPlugin.FILE_MEMORY_BUDGET_KEY) * 1024L * 1024L);
+
+    int threads = Math.min(settings.getInt(JavaScriptPlugin.THREADS_KEY), inputFiles.size());
+    if (threads > 1) {
+      analyseInParallel(context, inputFiles, threads, progressReport);
+
+    } else {
+      FileAnalyzer fileAnalyzer = new FileAnalyzer(context, parser, checks);
+      for (InputFile inputFile : inputFiles) {
+        fileAnalyzer.analyse(inputFile);
+        progressReport.nextFile();
+      }
+      fileAnalyzer.close();
+      fileAnalyzer.mergeProfile();
     }
 
     progressReport.stop();
+
+    if (cache != null) {
+      cache.evictUnused();
+    }
+
+    if (profiler != null) {
+      reportProfile();
+    }
+  }
+
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(fileSystem.baseDir(), path);
   }
 
-  private void analyse(InputFile inputFile, List<JavaScriptCheck> visitors) {
-    Issuable issuable = perspective(Issuable.class, inputFile);
-    ScriptTree scriptTree;
+  private void reportProfile() {
+    profiler.logSummary(LOG, PROFILING_SUMMARY_SIZE);
 
+    File report = new File(fileSystem.workDir(), PROFILING_REPORT);
     try {
-      scriptTree = (ScriptTree) parser.parse(new java.io.File(inputFile.absolutePath()));
-      scanFile(inputFile, visitors, issuable, scriptTree);
+      profiler.writeReport(report);
+      LOG.info("JavaScript analysis profile written to " + report.getAbsolutePath());
+    } catch (IOException e) {
+      LOG.warn("Unable to write JavaScript analysis profile to " + report.getAbsolutePath(), e);
+    }
+  }
 
-    } catch (RecognitionException e) {
-      LOG.error("Unable to parse file: " + inputFile.absolutePath());
-      LOG.error(e.getMessage());
-      processRecognitionException(e, issuable);
+  /**
+   * Each worker owns its parser and its check instances, files are taken from a shared queue.
+   */
+  private void analyseInParallel(final SensorContext context, List<InputFile> inputFiles, int threads, final ProgressReport progressReport) {
+    LOG.info("Analysing JavaScript files with " + threads + " threads");
+    final Queue<InputFile> queue = new ConcurrentLinkedQueue<>(inputFiles);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
 
-    } catch (Exception e) {
-      throw new AnalysisException("Unable to parse file: " + inputFile.absolutePath(), e);
+    try {
+      List<Future<Void>> results = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            FileAnalyzer fileAnalyzer = newFileAnalyzer(context);
+            InputFile inputFile = queue.poll();
+
+            while (inputFile != null && !Thread.currentThread().isInterrupted()) {
+              fileAnalyzer.analyse(inputFile);
+              synchronized (publishLock) {
+                progressReport.nextFile();
+              }
+              inputFile = queue.poll();
+            }
+            fileAnalyzer.close();
+            synchronized (publishLock) {
+              fileAnalyzer.mergeProfile();
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> result : results) {
+        waitFor(result);
+      }
+
+    } finally {
+      executor.shutdownNow();
     }
+  }
 
+  private FileAnalyzer newFileAnalyzer(SensorContext context) {
+    return new FileAnalyzer(context, JavaScriptParserBuilder.createParser(fileSystem.encoding()), newChecks());
   }
 
-  private void processRecognitionException(RecognitionException e, Issuable issuable) {
-    if (parsingErrorRuleKey != null) {
-      issuable.addIssue(issuable.newIssueBuilder()
-              .ruleKey(parsingErrorRuleKey)
-              .line(e.getLine())
-              .message(e.getMessage())
-              .build()
-      );
+  /**
+   * @return check instances which are not shared with other workers
+   */
+  private JavaScriptChecks newChecks() {
+    synchronized (publishLock) {
+      return createChecks();
     }
   }
 
-  private void scanFile(InputFile inputFile, List<JavaScriptCheck> visitors, Issuable issuable, ScriptTree scriptTree) {
-    SymbolModelImpl symbolModel = SymbolModelImpl.create(
-        scriptTree,
-        perspective(Symbolizable.class, inputFile),
-        new SourceFileOffsets(inputFile.file(), fileSystem.encoding()), settings
-    );
-
-    for (JavaScriptCheck visitor : visitors) {
-      if (visitor instanceof CharsetAwareVisitor) {
-        ((CharsetAwareVisitor) visitor).setCharset(fileSystem.encoding());
-      }
+  private static void waitFor(Future<Void> result) {
+    try {
+      result.get();
 
-      visitor.scanFile(new JavaScriptCheckContext(
-          scriptTree,
-          issuable,
-          inputFile.file(),
-          symbolModel,
-          settings,
-          checks,
-          new ComplexityVisitor()
-      ));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisException("Interrupted while analysing JavaScript files", e);
 
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new AnalysisException("Unable to analyse JavaScript files", cause);
     }
   }
 
@@ -212,4 +345,463 @@ public class JavaScriptSquidSensor implements Sensor {
     return getClass().getSimpleName();
   }
 
+  /**
+   * Analyses files one at a time. Not thread-safe: a parallel analysis uses one instance per worker.
+   */
+  private class FileAnalyzer {
+
+    private final SensorContext context;
+    // replaced when a parse exceeding the budget of its file is abandoned
+    private ActionParser<Tree> parser;
+    // thread running the parser when the budget of files is limited, created on first use
+    private ExecutorService parseExecutor = null;
+    // replaced when the analysis of a file is aborted, see useChecks
+    private JavaScriptChecks checks;
+    // visitors computing the measures and highlighting of a file into its record
+    private final List<JavaScriptCheck> publishers = Lists.newArrayList();
+    private final List<JavaScriptCheck> checkVisitors = Lists.newArrayList();
+    // subscription checks sharing a single walk of the tree
+    private SubscriptionVisitorDispatcher dispatcher;
+    // parsingErrorRuleKey equals null if ParsingErrorCheck is not activated
+    private RuleKey parsingErrorRuleKey = null;
+    // everything computed for the file being analysed, saved at once when the file is done
+    private FileAnalysisRecord record = null;
+    // false when the analysis of the file was aborted: its outcome may differ on a faster machine
+    private boolean cacheable = true;
+    // profile of the files analysed by this instance, null if profiling is disabled
+    private final AnalysisProfiler fileProfiler;
+    private final Map<JavaScriptCheck, String> profiledNames = Maps.newHashMap();
+    // complexity of the functions and classes of the file being analysed, shared by all its visitors
+    private final ComplexityVisitor complexity = new ComplexityVisitor();
+    // index of the nodes of the file being analysed, shared by all its visitors
+    private TreeKindIndex kindIndex = null;
+    // offsets of the file being analysed, shared by symbol and syntax highlighting
+    private SourceFileOffsets offsets = null;
+    // types are only inferred when an active check requires them
+    private final boolean inferTypes;
+
+    FileAnalyzer(SensorContext context, ActionParser<Tree> parser, JavaScriptChecks checks) {
+      this.context = context;
+      this.parser = parser;
+      this.fileProfiler = profiler == null ? null : new AnalysisProfiler();
+      this.inferTypes = checks.requiredServices().contains(FrontendService.TYPES);
+
+      publishers.add(new RecordingMetricsVisitor(context));
+      publishers.add(new RecordingHighlighterVisitor());
+      profiledNames.put(publishers.get(0), AnalysisProfiler.METRICS);
+      profiledNames.put(publishers.get(1), AnalysisProfiler.HIGHLIGHTING);
+
+      useChecks(checks);
+    }
+
+    /**
+     * Checks may keep state from {@code visitNode} to {@code leaveNode}: when the analysis of a file is aborted in the middle
+     * of a walk, their instances are replaced so that the next files are not checked with a corrupted state.
+     */
+    private void useChecks(JavaScriptChecks checks) {
+      if (this.checks != null) {
+        for (JavaScriptCheck check : this.checks.all()) {
+          profiledNames.remove(check);
+        }
+      }
+      this.checks = checks;
+      checkVisitors.clear();
+
+      List<SubscriptionAstTreeVisitor> dispatchedVisitors = Lists.newArrayList();
+      for (JavaScriptCheck check : checks.all()) {
+        if (check instanceof ParsingErrorCheck) {
+          parsingErrorRuleKey = checks.ruleKeyFor(check);
+        }
+        if (check instanceof CharsetAwareVisitor) {
+          ((CharsetAwareVisitor) check).setCharset(fileSystem.encoding());
+        }
+
+        if (fileProfiler != null) {
+          RuleKey ruleKey = checks.ruleKeyFor(check);
+          profiledNames.put(check, ruleKey == null ? check.getClass().getName() : ruleKey.toString());
+        }
+
+        // when profiling, checks walk the tree on their own so that each of them is measured separately
+        if (fileProfiler == null && SubscriptionVisitorDispatcher.canDispatch(check)) {
+          dispatchedVisitors.add((SubscriptionAstTreeVisitor) check);
+        } else {
+          checkVisitors.add(check);
+        }
+      }
+      this.dispatcher = new SubscriptionVisitorDispatcher(dispatchedVisitors);
+    }
+
+    void close() {
+      if (parseExecutor != null) {
+        parseExecutor.shutdownNow();
+      }
+    }
+
+    void mergeProfile() {
+      if (fileProfiler != null) {
+        profiler.merge(fileProfiler);
+      }
+    }
+
+    void analyse(InputFile inputFile) {
+      Issuable issuable;
+      synchronized (publishLock) {
+        issuable = perspective(Issuable.class, inputFile);
+      }
+
+      String library = null;
+      SourceBuffer source;
+      try {
+        long size = inputFile.file().length();
+        if (knownLibraries != null && knownLibraries.hasLibraryOfSize(size)) {
+          // recognized from the file bytes, hashed while they are decoded so that they are not kept in memory
+          MessageDigest digest = knownLibraries.newDigest();
+          DigestInputStream input = new DigestInputStream(new FileInputStream(inputFile.file()), digest);
+          try (Reader reader = new InputStreamReader(input, fileSystem.encoding())) {
+            source = new SourceBuffer(inputFile.file(), CharStreams.toString(reader));
+          }
+          library = knownLibraries.find(size, digest);
+        } else {
+          source = SourceBuffer.read(inputFile.file(), fileSystem.encoding());
+        }
+      } catch (IOException | IllegalStateException e) {
+        throw new AnalysisException("Unable to read file: " + inputFile.absolutePath(), e);
+      }
+
+      if (library != null) {
+        LOG.info("Only computing lines of known library " + library + ": " + inputFile.absolutePath());
+        analyseLinesOnly(inputFile, source);
+        return;
+      }
+
+      if (!JavaScriptPlugin.MINIFIED_FILES_ANALYSE.equals(minifiedFiles)) {
+        String minifiedReason = MinifiedFileDetector.detect(inputFile.file().getName(), source.content());
+        if (minifiedReason != null) {
+          analyseMinified(inputFile, source, minifiedReason);
+          return;
+        }
+      }
+
+      String cacheKey = null;
+      if (cache != null) {
+        cacheKey = cache.fileKey(inputFile.relativePath(), source.content());
+        FileAnalysisRecord cachedRecord = cache.load(cacheKey);
+        if (cachedRecord != null) {
+          replay(inputFile, issuable, cachedRecord);
+          return;
+        }
+      }
+
+      // the file is analysed without holding the publish lock, only saving its record requires it
+      record = new FileAnalysisRecord();
+      cacheable = true;
+      RecordingIssuable recordingIssuable = new RecordingIssuable(issuable, cacheKey == null ? null : record);
+      parse(inputFile, source, recordingIssuable);
+      if (fileProfiler != null) {
+        fileProfiler.fileAnalysed();
+      }
+
+      synchronized (publishLock) {
+        recordingIssuable.saveIssues();
+        save(inputFile, record);
+      }
+      if (cacheKey != null && cacheable) {
+        cache.save(cacheKey, record);
+      }
+    }
+
+    private void analyseMinified(InputFile inputFile, SourceBuffer source, String reason) {
+      if (JavaScriptPlugin.MINIFIED_FILES_SKIP.equals(minifiedFiles)) {
+        LOG.info("Skipping minified file (" + reason + "): " + inputFile.absolutePath());
+        cpdTokens.publish(inputFile, Collections.<Tree>emptyList());
+        return;
+      }
+
+      LOG.info("Only computing lines of minified file (" + reason + "): " + inputFile.absolutePath());
+      analyseLinesOnly(inputFile, source);
+    }
+
+    /**
+     * The file is neither parsed nor checked, and is excluded from the duplication detection.
+     */
+    private void analyseLinesOnly(InputFile inputFile, SourceBuffer source) {
+      cpdTokens.publish(inputFile, Collections.<Tree>emptyList());
+      List<Token> tokens = JavaScriptScanner.scan(source.content(), inputFile.file().toURI());
+      Set<Integer> linesOfCode = Sets.newHashSet();
+      for (Token token : tokens.subList(0, tokens.size() - 1)) {
+        linesOfCode.add(token.getLine());
+      }
+      int linesNumber = tokens.get(tokens.size() - 1).getLine();
+
+      synchronized (publishLock) {
+        context.saveMeasure(inputFile, CoreMetrics.LINES, (double) linesNumber);
+        context.saveMeasure(inputFile, CoreMetrics.NCLOC, (double) linesOfCode.size());
+        FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
+        for (int line = 1; line <= linesNumber; line++) {
+          fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, linesOfCode.contains(line) ? 1 : 0);
+        }
+        fileLinesContext.save();
+      }
+    }
+
+    private void replay(InputFile inputFile, Issuable issuable, FileAnalysisRecord cachedRecord) {
+      synchronized (publishLock) {
+        cachedRecord.replayIssues(issuable);
+        save(inputFile, cachedRecord);
+      }
+    }
+
+    /**
+     * Saves the measures, highlighting and symbol table of the record, while holding the publish lock.
+     */
+    private void save(InputFile inputFile, FileAnalysisRecord fileRecord) {
+      fileRecord.replayMeasures(context, inputFile);
+
+      if (fileRecord.hasLinesData()) {
+        fileRecord.replayLinesData(fileLinesContextFactory.createFor(inputFile));
+        noSonarFilter.addComponent(context.getResource(inputFile).getEffectiveKey(), fileRecord.noSonarLines());
+
+        Highlightable highlightable = resourcePerspectives.as(Highlightable.class, inputFile);
+        if (highlightable != null) {
+          fileRecord.replayHighlighting(highlightable.newHighlighting());
+        } else {
+          LOG.warn("Could not get " + Highlightable.class.getCanonicalName() + " for " + inputFile.file());
+        }
+        fileRecord.replaySymbols(perspective(Symbolizable.class, inputFile));
+      }
+    }
+
+    private void parse(InputFile inputFile, SourceBuffer source, RecordingIssuable issuable) {
+      ScriptTree scriptTree;
+      final FileBudget.Account account = budget.open();
+      if (budget.isLimited()) {
+        TreeWalker.setCheckpoint(new Runnable() {
+          @Override
+          public void run() {
+            account.check("Analysis");
+          }
+        });
+      }
+
+      try {
+        AnalysisProfiler.Probe probe = startPhase(AnalysisProfiler.PARSE);
+        scriptTree = parseWithinBudget(source, account);
+        stop(probe);
+        scanFile(inputFile, source, issuable, scriptTree, account);
+
+      } catch (RecognitionException e) {
+        LOG.error("Unable to parse file: " + inputFile.absolutePath());
+        LOG.error(e.getMessage());
+        processRecognitionException(e, issuable);
+
+      } catch (FileBudget.ExceededException e) {
+        LOG.error("Analysis of file aborted: " + inputFile.absolutePath());
+        LOG.error(e.getMessage());
+        abort(e.getMessage(), issuable);
+
+      } catch (StackOverflowError e) {
+        // symbol model and type inference still walk the tree recursively
+        LOG.error("Analysis of file aborted, its syntax tree is too deeply nested: " + inputFile.absolutePath());
+        abort("The syntax tree is too deeply nested to be analysed", issuable);
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AnalysisException("Interrupted while parsing file: " + inputFile.absolutePath(), e);
+
+      } catch (Exception e) {
+        throw new AnalysisException("Unable to parse file: " + inputFile.absolutePath(), e);
+
+      } finally {
+        TreeWalker.setCheckpoint(null);
+        // the analyzer is reused for the next file: nothing must keep the tree of this one reachable
+        complexity.clearMemoized();
+        kindIndex = null;
+      }
+    }
+
+    private ScriptTree parseWithinBudget(final SourceBuffer source, FileBudget.Account account) throws InterruptedException {
+      if (!budget.isLimited()) {
+        return parseTree(source);
+      }
+
+      if (!budget.canAbandonTasks()) {
+        if (abandonedParsesWarned.compareAndSet(false, true)) {
+          LOG.warn("Too many abandoned parses are still running: files are now parsed without time limit");
+        }
+        ScriptTree scriptTree = parseTree(source);
+        account.check("Parsing");
+        return scriptTree;
+      }
+
+      if (parseExecutor == null) {
+        parseExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("javascript-parser-%d").setDaemon(true).build());
+      }
+      try {
+        return account.call("Parsing", parseExecutor, new Callable<ScriptTree>() {
+          @Override
+          public ScriptTree call() {
+            return parseTree(source);
+          }
+        });
+
+      } catch (FileBudget.ExceededException e) {
+        // the abandoned parse keeps its thread and its parser until it completes
+        parseExecutor.shutdownNow();
+        parseExecutor = null;
+        parser = JavaScriptParserBuilder.createParser(fileSystem.encoding());
+        throw e;
+      }
+    }
+
+    private ScriptTree parseTree(SourceBuffer source) {
+      return (ScriptTree) parser.parse(source.content());
+    }
+
+    private void processRecognitionException(RecognitionException e, Issuable issuable) {
+      if (parsingErrorRuleKey != null) {
+        issuable.addIssue(issuable.newIssueBuilder()
+                .ruleKey(parsingErrorRuleKey)
+                .line(e.getLine())
+                .message(e.getMessage())
+                .build()
+        );
+      }
+    }
+
+    /**
+     * Only the parsing error is saved for an aborted file: nothing computed before the abort is kept, since its outcome
+     * depends on the speed of the machine or on the size of the thread stack.
+     */
+    private void abort(String message, RecordingIssuable issuable) {
+      record = new FileAnalysisRecord();
+      issuable.discardIssues();
+      if (parsingErrorRuleKey != null) {
+        issuable.addIssue(issuable.newIssueBuilder()
+                .ruleKey(parsingErrorRuleKey)
+                .message(message)
+                .build()
+        );
+      }
+      cacheable = false;
+      useChecks(newChecks());
+    }
+
+    private void scanFile(InputFile inputFile, SourceBuffer source, Issuable issuable, ScriptTree scriptTree, FileBudget.Account account) {
+      AnalysisProfiler.Probe phaseProbe = startPhase(AnalysisProfiler.SYMBOL_MODEL);
+      SymbolModelImpl symbolModel = SymbolModelImpl.createWithoutTypes(scriptTree, null, null);
+      stop(phaseProbe);
+      if (inferTypes) {
+        phaseProbe = startPhase(AnalysisProfiler.TYPE_INFERENCE);
+        SymbolModelImpl.inferTypes(scriptTree, settings);
+        stop(phaseProbe);
+      }
+
+      account.check("Analysis");
+
+      complexity.memoize(scriptTree);
+      kindIndex = new TreeKindIndex(scriptTree);
+      offsets = source.offsets();
+      record.addSymbols(symbolModel, offsets);
+
+      for (JavaScriptCheck publisher : publishers) {
+        AnalysisProfiler.Probe probe = startPhase(profiledNames.get(publisher));
+        publisher.scanFile(newContext(source, issuable, scriptTree, symbolModel));
+        stop(probe);
+      }
+
+      for (JavaScriptCheck visitor : checkVisitors) {
+        account.check("Analysis");
+        scan(visitor, newContext(source, issuable, scriptTree, symbolModel));
+      }
+      account.check("Analysis");
+      dispatcher.scanFile(newContext(source, issuable, scriptTree, symbolModel));
+
+      cpdTokens.publish(inputFile, kindIndex.nodes(Tree.Kind.TOKEN));
+    }
+
+    private void scan(JavaScriptCheck visitor, JavaScriptCheckContext visitorContext) {
+      if (fileProfiler == null) {
+        visitor.scanFile(visitorContext);
+      } else {
+        AnalysisProfiler.Probe probe = fileProfiler.startRule(profiledNames.get(visitor));
+        visitor.scanFile(visitorContext);
+        probe.stop();
+      }
+    }
+
+    @Nullable
+    private AnalysisProfiler.Probe startPhase(String phase) {
+      return fileProfiler == null ? null : fileProfiler.startPhase(phase);
+    }
+
+    private void stop(@Nullable AnalysisProfiler.Probe probe) {
+      if (probe != null) {
+        probe.stop();
+      }
+    }
+
+    private JavaScriptCheckContext newContext(SourceBuffer source, Issuable issuable, ScriptTree scriptTree, SymbolModelImpl symbolModel) {
+      return new JavaScriptCheckContext(
+          scriptTree,
+          issuable,
+          source,
+          symbolModel,
+          settings,
+          checks,
+          complexity,
+          kindIndex
+      );
+    }
+
+    /**
+     * Computes the measures of the file into its record instead of saving them.
+     */
+    private class RecordingMetricsVisitor extends MetricsVisitor {
+
+      RecordingMetricsVisitor(SensorContext context) {
+        super(fileSystem, context, noSonarFilter, /* FIXME with SONARJS-203: ignore header comments*/ false, fileLinesContextFactory);
+      }
+
+      @Override
+      protected void saveMetricOnFile(Metric metric, double value) {
+        record.addMeasure(metric, value);
+      }
+
+      @Override
+      protected void saveMeasureOnFile(Measure measure) {
+        record.addMeasure(measure);
+      }
+
+      @Override
+      protected void saveNoSonarLines(Set<Integer> noSonarLines) {
+        record.setNoSonarLines(noSonarLines);
+      }
+
+      @Override
+      protected void saveLinesData(int linesNumber, Set<Integer> linesOfCode, Set<Integer> commentLines) {
+        record.setLinesData(linesNumber, linesOfCode, commentLines);
+      }
+    }
+
+    /**
+     * Computes the highlighting of the file into its record instead of saving it.
+     */
+    private class RecordingHighlighterVisitor extends HighlighterVisitor {
+
+      RecordingHighlighterVisitor() {
+        super(resourcePerspectives, fileSystem);
+      }
+
+      @Override
+      protected HighlightingBuilder newHighlighting(File file) {
+        return record.highlightingBuilder();
+      }
+
+      @Override
+      protected SourceFileOffsets sourceFileOffsets(TreeVisitorContext context) {
+        return offsets;
+      }
+    }
+  }
+
 }
@@ -0,0 +1,329 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Closeables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.RuleProperty;
+import org.sonar.plugins.javascript.JavaScriptChecks;
+import org.sonar.plugins.javascript.JavaScriptPlugin;
+import org.sonar.javascript.parser.JavaScriptParserBuilder;
+import org.sonar.plugins.javascript.api.JavaScriptCheck;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of {@link FileAnalysisRecord}, keyed by file path and content and by everything that can change the analysis result:
+ * code of the plugin and of the custom rules, active rules with their parameters and JavaScript settings.
+ * Each module has its own directory, see {@link #moduleDirectory(File, String)}: the records which are not used by the analysis
+ * of a module are evicted at its end.
+ */
+public class AnalysisCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisCache.class);
+
+  // to be incremented when the format of FileAnalysisRecord changes
+  private static final String CACHE_VERSION = "1";
+  private static final String EXTENSION = ".record";
+
+  // JavaScript settings driving the sensor, which cannot change the record of an analysed file
+  private static final Set<String> IGNORED_PROPERTIES = ImmutableSet.of(
+    JavaScriptPlugin.FILE_SUFFIXES_KEY,
+    JavaScriptPlugin.LCOV_UT_REPORT_PATH,
+    JavaScriptPlugin.LCOV_IT_REPORT_PATH,
+    JavaScriptPlugin.FORCE_ZERO_COVERAGE_KEY,
+    JavaScriptPlugin.JSTESTDRIVER_REPORTS_PATH,
+    JavaScriptPlugin.JSTEST_REPORTS_PATH,
+    JavaScriptPlugin.THREADS_KEY,
+    JavaScriptPlugin.CACHE_PATH_KEY,
+    JavaScriptPlugin.PROFILING_KEY,
+    JavaScriptPlugin.MINIFIED_FILES_KEY,
+    JavaScriptPlugin.KNOWN_LIBRARIES_PATH_KEY,
+    JavaScriptPlugin.FILE_TIME_BUDGET_KEY,
+    JavaScriptPlugin.FILE_MEMORY_BUDGET_KEY);
+
+  private final File directory;
+  private final byte[] analysisKey;
+  // keys of the records loaded or saved by this analysis
+  private final Set<String> usedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * @param directory directory of the records of the analysed module
+   */
+  public AnalysisCache(File directory, String analysisKey) {
+    this.directory = directory;
+    this.analysisKey = analysisKey.getBytes(Charsets.UTF_8);
+  }
+
+  /**
+   * Modules sharing the same cache directory get their own subdirectory, so that they do not evict the records of each other.
+   *
+   * @return the subdirectory of the cache directory where the records of the given module are stored
+   */
+  public static File moduleDirectory(File cacheDirectory, String moduleKey) {
+    return new File(cacheDirectory, toHex(newDigest().digest(moduleKey.getBytes(Charsets.UTF_8))));
+  }
+
+  /**
+   * @param relativePath path of the file, which checks can report, e.g. in issue messages
+   * @return the key of a file with the given path and content
+   */
+  public String fileKey(String relativePath, String content) {
+    MessageDigest digest = newDigest();
+    digest.update(analysisKey);
+    digest.update((relativePath + '\n').getBytes(Charsets.UTF_8));
+    digest.update(content.getBytes(Charsets.UTF_8));
+    return toHex(digest.digest());
+  }
+
+  /**
+   * @return the record stored for the given key, null on a cache miss or if the record cannot be read
+   */
+  @CheckForNull
+  public FileAnalysisRecord load(String fileKey) {
+    usedKeys.add(fileKey);
+    File file = recordFile(fileKey);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    ObjectInputStream input = null;
+    try {
+      input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+      return (FileAnalysisRecord) input.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      LOG.debug("Ignoring unreadable analysis cache entry " + file, e);
+      return null;
+    } finally {
+      Closeables.closeQuietly(input);
+    }
+  }
+
+  public void save(String fileKey, FileAnalysisRecord record) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      LOG.warn("Unable to create analysis cache directory " + directory);
+      return;
+    }
+
+    usedKeys.add(fileKey);
+    File file = recordFile(fileKey);
+    // written to a temporary file first, so that concurrent readers never see a partial record
+    File tmpFile = new File(directory, fileKey + "." + Thread.currentThread().getId() + ".tmp");
+    ObjectOutputStream output = null;
+    try {
+      output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      output.writeObject(record);
+      output.close();
+      output = null;
+      if (!tmpFile.renameTo(file)) {
+        LOG.debug("Unable to write analysis cache entry " + file);
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to write analysis cache entry " + file, e);
+    } finally {
+      Closeables.closeQuietly(output);
+      if (tmpFile.exists() && !tmpFile.delete()) {
+        LOG.debug("Unable to delete " + tmpFile);
+      }
+    }
+  }
+
+  /**
+   * Deletes the records of the module which were neither loaded nor saved by this analysis: they were computed for a former
+   * content of a file, or with other code, rules or settings.
+   */
+  public void evictUnused() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    int evicted = 0;
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(EXTENSION) && !usedKeys.contains(name.substring(0, name.length() - EXTENSION.length()))) {
+        if (file.delete()) {
+          evicted++;
+        } else {
+          LOG.debug("Unable to delete analysis cache entry " + file);
+        }
+      }
+    }
+    if (evicted > 0) {
+      LOG.debug("Evicted " + evicted + " unused analysis cache entries from " + directory);
+    }
+  }
+
+  private File recordFile(String fileKey) {
+    return new File(directory, fileKey + EXTENSION);
+  }
+
+  /**
+   * Fingerprint of everything other than the file content which can change the result of the analysis.
+   * The code of the plugin and of the custom rules is fingerprinted from its jar, as versions do not change between snapshots.
+   * All JavaScript settings are part of it, as checks can read them, except the ones which only drive the sensor.
+   */
+  public static String analysisKey(Settings settings, Charset charset, JavaScriptChecks checks) {
+    StringBuilder key = new StringBuilder();
+    key.append(CACHE_VERSION).append('\n');
+    key.append(charset.name()).append('\n');
+
+    SortedMap<String, String> properties = new TreeMap<>();
+    for (Map.Entry<String, String> property : settings.getProperties().entrySet()) {
+      if (property.getKey().startsWith(JavaScriptPlugin.PROPERTY_PREFIX) && !IGNORED_PROPERTIES.contains(property.getKey())) {
+        properties.put(property.getKey(), property.getValue());
+      }
+    }
+
+    addCodeSource(properties, JavaScriptPlugin.class);
+    addCodeSource(properties, JavaScriptParserBuilder.class);
+    for (JavaScriptCheck check : checks.all()) {
+      RuleKey ruleKey = checks.ruleKeyFor(check);
+      properties.put("rule:" + ruleKey, ruleParameters(check));
+      addCodeSource(properties, check.getClass());
+    }
+
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      key.append(property.getKey()).append('=').append(property.getValue()).append('\n');
+    }
+    return key.toString();
+  }
+
+  private static void addCodeSource(Map<String, String> properties, Class<?> clazz) {
+    CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+    URL location = codeSource == null ? null : codeSource.getLocation();
+    if (location == null) {
+      properties.put("code:" + clazz.getName(), String.valueOf(clazz.getPackage().getImplementationVersion()));
+      return;
+    }
+
+    String code = "code:" + location;
+    if (!properties.containsKey(code)) {
+      try {
+        properties.put(code, fingerprint(new File(location.toURI())));
+      } catch (URISyntaxException | IllegalArgumentException | IOException e) {
+        throw new IllegalStateException("Unable to fingerprint " + location, e);
+      }
+    }
+  }
+
+  /**
+   * @return SHA-1 of a jar, or of the names, sizes and modification dates of the files of a classes directory
+   */
+  private static String fingerprint(File location) throws IOException {
+    MessageDigest digest = newDigest();
+    if (location.isDirectory()) {
+      updateWithDirectory(digest, location, "");
+    } else {
+      InputStream input = new FileInputStream(location);
+      try {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      } finally {
+        Closeables.closeQuietly(input);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  private static void updateWithDirectory(MessageDigest digest, File directory, String path) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files);
+    for (File file : files) {
+      String filePath = path + "/" + file.getName();
+      if (file.isDirectory()) {
+        updateWithDirectory(digest, file, filePath);
+      } else {
+        digest.update((filePath + ':' + file.length() + ':' + file.lastModified() + '\n').getBytes(Charsets.UTF_8));
+      }
+    }
+  }
+
+  private static String ruleParameters(JavaScriptCheck check) {
+    StringBuilder parameters = new StringBuilder();
+    Class<?> clazz = check.getClass();
+
+    while (clazz != null) {
+      for (Field field : clazz.getDeclaredFields()) {
+        if (field.isAnnotationPresent(RuleProperty.class)) {
+          field.setAccessible(true);
+          try {
+            parameters.append(field.getName()).append(':').append(field.get(check)).append(';');
+          } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to read parameter " + field.getName() + " of " + check.getClass(), e);
+          }
+        }
+      }
+      clazz = clazz.getSuperclass();
+    }
+    return parameters.toString();
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issuable.IssueBuilder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.PersistenceMode;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.source.Highlightable.HighlightingBuilder;
+import org.sonar.api.source.Symbolizable;
+import org.sonar.javascript.highlighter.SourceFileOffsets;
+import org.sonar.plugins.javascript.api.symbols.Symbol;
+import org.sonar.plugins.javascript.api.symbols.SymbolModel;
+import org.sonar.plugins.javascript.api.symbols.Usage;
+import org.sonar.plugins.javascript.api.tree.lexical.SyntaxToken;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything the sensor computed for one file: issues, measures, highlighting and symbol table.
+ * It is saved at once when the analysis of the file is done, and can be replayed from {@link AnalysisCache}.
+ */
+public class FileAnalysisRecord implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<IssueRecord> issues = Lists.newArrayList();
+  private final Map<String, Double> measures = Maps.newLinkedHashMap();
+  private final List<DataMeasureRecord> dataMeasures = Lists.newArrayList();
+  private final Set<Integer> noSonarLines = Sets.newHashSet();
+  private final Set<Integer> linesOfCode = Sets.newHashSet();
+  private final Set<Integer> commentLines = Sets.newHashSet();
+  private int linesNumber = -1;
+  // start offset, end offset and code of each highlighted range
+  private final List<int[]> highlightingOffsets = Lists.newArrayList();
+  private final List<String> highlightingCodes = Lists.newArrayList();
+  // start and end offsets of each symbol declaration, followed by the start offsets of its references
+  private final List<int[]> symbols = Lists.newArrayList();
+
+  public void addIssue(Issue issue) {
+    issues.add(new IssueRecord(issue.ruleKey().toString(), issue.line(), issue.message(), issue.effortToFix()));
+  }
+
+  public void addMeasure(Metric metric, double value) {
+    measures.put(metric.getKey(), value);
+  }
+
+  public void addMeasure(Measure measure) {
+    dataMeasures.add(new DataMeasureRecord(measure.getMetricKey(), measure.getData(), measure.getPersistenceMode()));
+  }
+
+  public void setNoSonarLines(Set<Integer> lines) {
+    noSonarLines.addAll(lines);
+  }
+
+  public void setLinesData(int linesNumber, Set<Integer> linesOfCode, Set<Integer> commentLines) {
+    this.linesNumber = linesNumber;
+    this.linesOfCode.addAll(linesOfCode);
+    this.commentLines.addAll(commentLines);
+  }
+
+  public void addHighlighting(int startOffset, int endOffset, String code) {
+    highlightingOffsets.add(new int[] {startOffset, endOffset});
+    highlightingCodes.add(code);
+  }
+
+  /**
+   * @return a builder adding the highlighted ranges to this record, they are saved when the record is replayed
+   */
+  public HighlightingBuilder highlightingBuilder() {
+    return new HighlightingBuilder() {
+      @Override
+      public HighlightingBuilder highlight(int startOffset, int endOffset, String typeOfText) {
+        addHighlighting(startOffset, endOffset, typeOfText);
+        return this;
+      }
+
+      @Override
+      public void done() {
+        // ranges are only saved by replayHighlighting
+      }
+    };
+  }
+
+  /**
+   * Mirrors {@link org.sonar.javascript.highlighter.HighlightSymbolTableBuilder}: the first usage of a symbol is its declaration.
+   */
+  public void addSymbols(SymbolModel symbolModel, SourceFileOffsets offsets) {
+    for (Symbol symbol : symbolModel.getSymbols()) {
+      List<Usage> usages = Lists.newArrayList(symbol.usages());
+      if (!usages.isEmpty()) {
+        int[] symbolOffsets = new int[usages.size() + 1];
+        SyntaxToken declaration = usages.get(0).identifierTree().identifierToken();
+        symbolOffsets[0] = offsets.startOffset(declaration);
+        symbolOffsets[1] = offsets.endOffset(declaration);
+        for (int i = 1; i < usages.size(); i++) {
+          symbolOffsets[i + 1] = offsets.startOffset(usages.get(i).identifierTree().identifierToken());
+        }
+        symbols.add(symbolOffsets);
+      }
+    }
+  }
+
+  public void replayIssues(Issuable issuable) {
+    for (IssueRecord issue : issues) {
+      IssueBuilder issueBuilder = issuable.newIssueBuilder()
+        .ruleKey(RuleKey.parse(issue.ruleKey))
+        .message(issue.message);
+      if (issue.line != null) {
+        issueBuilder.line(issue.line);
+      }
+      if (issue.effortToFix != null) {
+        issueBuilder.effortToFix(issue.effortToFix);
+      }
+      issuable.addIssue(issueBuilder.build());
+    }
+  }
+
+  public void replayMeasures(SensorContext context, InputFile inputFile) {
+    for (Map.Entry<String, Double> measure : measures.entrySet()) {
+      context.saveMeasure(inputFile, metric(measure.getKey()), measure.getValue());
+    }
+    for (DataMeasureRecord measure : dataMeasures) {
+      context.saveMeasure(inputFile, new Measure(metric(measure.metricKey), measure.data).setPersistenceMode(measure.persistenceMode));
+    }
+  }
+
+  /**
+   * @return true if the file was parsed: line measures, highlighting and symbol table are only saved for parsed files
+   */
+  public boolean hasLinesData() {
+    return linesNumber >= 0;
+  }
+
+  public void replayLinesData(FileLinesContext fileLinesContext) {
+    for (int line = 1; line <= linesNumber; line++) {
+      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, linesOfCode.contains(line) ? 1 : 0);
+      fileLinesContext.setIntValue(CoreMetrics.COMMENT_LINES_DATA_KEY, line, commentLines.contains(line) ? 1 : 0);
+    }
+    fileLinesContext.save();
+  }
+
+  public Set<Integer> noSonarLines() {
+    return noSonarLines;
+  }
+
+  public void replayHighlighting(HighlightingBuilder highlighting) {
+    for (int i = 0; i < highlightingCodes.size(); i++) {
+      int[] range = highlightingOffsets.get(i);
+      highlighting.highlight(range[0], range[1], highlightingCodes.get(i));
+    }
+    highlighting.done();
+  }
+
+  public void replaySymbols(Symbolizable symbolizable) {
+    Symbolizable.SymbolTableBuilder builder = symbolizable.newSymbolTableBuilder();
+    for (int[] symbolOffsets : symbols) {
+      org.sonar.api.source.Symbol reference = builder.newSymbol(symbolOffsets[0], symbolOffsets[1]);
+      for (int i = 2; i < symbolOffsets.length; i++) {
+        builder.newReference(reference, symbolOffsets[i]);
+      }
+    }
+    symbolizable.setSymbolTable(builder.build());
+  }
+
+  private static Metric metric(String key) {
+    for (Metric metric : CoreMetrics.getMetrics()) {
+      if (metric.getKey().equals(key)) {
+        return metric;
+      }
+    }
+    throw new IllegalStateException("Unknown metric " + key);
+  }
+
+  private static class IssueRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String ruleKey;
+    private final Integer line;
+    private final String message;
+    private final Double effortToFix;
+
+    IssueRecord(String ruleKey, @Nullable Integer line, String message, @Nullable Double effortToFix) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+      this.effortToFix = effortToFix;
+    }
+  }
+
+  private static class DataMeasureRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String metricKey;
+    private final String data;
+    private final PersistenceMode persistenceMode;
+
+    DataMeasureRecord(String metricKey, String data, PersistenceMode persistenceMode) {
+      this.metricKey = metricKey;
+      this.data = data;
+      this.persistenceMode = persistenceMode;
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import javax.annotation.CheckForNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the fingerprints of third-party libraries, such as releases of jQuery or Backbone, which are recognized
+ * before being parsed. No fingerprint is bundled with the plugin: they are read from a list supplied by the user,
+ * with one library per line:
+ * <pre>
+ * # comment
+ * &lt;SHA-1 of the file bytes&gt; &lt;size of the file in bytes&gt; &lt;name of the library&gt;
+ * </pre>
+ * Only files having the size of a known library need to be hashed, while their bytes are read for their analysis.
+ */
+public class KnownLibraries {
+
+  // names of the libraries by file size, then by SHA-1
+  private final Map<Long, Map<String, String>> librariesBySize = Maps.newHashMap();
+
+  KnownLibraries() {
+  }
+
+  /**
+   * @param libraries file listing the fingerprints supplied by the user
+   */
+  public static KnownLibraries load(File libraries) {
+    KnownLibraries knownLibraries = new KnownLibraries();
+    try {
+      knownLibraries.add(Files.readLines(libraries, Charsets.UTF_8), libraries.getPath());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read known library fingerprints", e);
+    }
+    return knownLibraries;
+  }
+
+  void add(List<String> lines, String source) {
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      List<String> fields = Lists.newArrayList(Splitter.on(' ').omitEmptyStrings().limit(3).split(line));
+      if (fields.size() != 3 || fields.get(0).length() != 40 || !fields.get(1).matches("[0-9]++")) {
+        throw new IllegalStateException("Invalid library fingerprint at " + source + ":" + (i + 1) + ": " + line);
+      }
+      add(fields.get(0), Long.parseLong(fields.get(1)), fields.get(2));
+    }
+  }
+
+  void add(String sha1, long size, String name) {
+    Map<String, String> libraries = librariesBySize.get(size);
+    if (libraries == null) {
+      libraries = Maps.newHashMap();
+      librariesBySize.put(size, libraries);
+    }
+    libraries.put(sha1.toLowerCase(), name);
+  }
+
+  /**
+   * @return true if a known library has this size, in which case the file has to be fingerprinted with {@link #newDigest()}
+   */
+  public boolean hasLibraryOfSize(long size) {
+    return librariesBySize.containsKey(size);
+  }
+
+  /**
+   * @return a digest to update with the bytes of a file, then to pass to {@link #find(long, MessageDigest)}
+   */
+  public MessageDigest newDigest() {
+    return AnalysisCache.newDigest();
+  }
+
+  /**
+   * @param size size of the file in bytes
+   * @param digest digest updated with all the bytes of the file, it is reset by this call
+   * @return the name of the library the file is an exact copy of, null if it is not a known library
+   */
+  @CheckForNull
+  public String find(long size, MessageDigest digest) {
+    Map<String, String> libraries = librariesBySize.get(size);
+    if (libraries == null) {
+      return null;
+    }
+    return libraries.get(AnalysisCache.toHex(digest.digest()));
+  }
+
+}
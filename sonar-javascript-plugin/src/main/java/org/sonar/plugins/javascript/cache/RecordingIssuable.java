@@ -0,0 +1,88 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.collect.Lists;
+import org.sonar.api.component.Component;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Keeps the issues raised on a file instead of saving them, until {@link #saveIssues()} is called.
+ * They are also recorded when the analysis of the file is cached, so that they can be replayed from {@link AnalysisCache}.
+ */
+public class RecordingIssuable implements Issuable {
+
+  private final Issuable issuable;
+  private final FileAnalysisRecord record;
+  private final List<Issue> issues = Lists.newArrayList();
+
+  public RecordingIssuable(Issuable issuable, @Nullable FileAnalysisRecord record) {
+    this.issuable = issuable;
+    this.record = record;
+  }
+
+  @Override
+  public IssueBuilder newIssueBuilder() {
+    return issuable.newIssueBuilder();
+  }
+
+  @Override
+  public boolean addIssue(Issue issue) {
+    if (record != null) {
+      record.addIssue(issue);
+    }
+    issues.add(issue);
+    return true;
+  }
+
+  /**
+   * Forgets the issues kept so far, which are then not saved. The record must then no longer be cached.
+   */
+  public void discardIssues() {
+    issues.clear();
+  }
+
+  public void saveIssues() {
+    for (Issue issue : issues) {
+      issuable.addIssue(issue);
+    }
+    issues.clear();
+  }
+
+  @Override
+  public List<Issue> issues() {
+    return issuable.issues();
+  }
+
+  @Override
+  public List<Issue> resolvedIssues() {
+    return issuable.resolvedIssues();
+  }
+
+  @Override
+  public Component component() {
+    return issuable.component();
+  }
+
+}
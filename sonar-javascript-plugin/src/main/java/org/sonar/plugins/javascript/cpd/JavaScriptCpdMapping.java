@@ -31,15 +31,21 @@ public class JavaScriptCpdMapping extends AbstractCpdMapping {
 
   private final JavaScriptLanguage language;
   private final Charset charset;
+  private final JavaScriptCpdTokens publishedTokens;
 
   public JavaScriptCpdMapping(JavaScriptLanguage language, FileSystem fs) {
+    this(language, fs, new JavaScriptCpdTokens());
+  }
+
+  public JavaScriptCpdMapping(JavaScriptLanguage language, FileSystem fs, JavaScriptCpdTokens publishedTokens) {
     this.language = language;
     this.charset = fs.encoding();
+    this.publishedTokens = publishedTokens;
   }
 
   @Override
   public Tokenizer getTokenizer() {
-    return new JavaScriptTokenizer(charset);
+    return new JavaScriptTokenizer(charset, publishedTokens);
   }
 
   @Override
@@ -0,0 +1,146 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cpd;
+
+import com.sonar.sslr.api.GenericTokenType;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.WildcardPattern;
+import org.sonar.javascript.tree.impl.JavaScriptTree;
+import org.sonar.javascript.tree.impl.lexical.InternalSyntaxToken;
+import org.sonar.plugins.javascript.JavaScriptLanguage;
+import org.sonar.plugins.javascript.api.tree.Tree;
+import org.sonar.plugins.javascript.api.tree.Tree.Kind;
+
+import javax.annotation.CheckForNull;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tokens of the files parsed by {@link org.sonar.plugins.javascript.JavaScriptSquidSensor}, kept until the duplication detection
+ * consumes them, so that {@link JavaScriptTokenizer} does not lex these files again. Tokens are only kept for the files
+ * which the duplication detection will consume, see {@link #isDuplicationDetected(InputFile)}. Thread-safe.
+ */
+public class JavaScriptCpdTokens implements BatchExtension {
+
+  static final String CPD_EXCLUSIONS_KEY = "sonar.cpd.exclusions";
+
+  private final ConcurrentMap<String, FileTokens> tokensByFile = new ConcurrentHashMap<>();
+  private final boolean skipped;
+  private final WildcardPattern[] exclusions;
+
+  public JavaScriptCpdTokens() {
+    this(new Settings());
+  }
+
+  public JavaScriptCpdTokens(Settings settings) {
+    String languageSkipKey = "sonar.cpd." + JavaScriptLanguage.KEY + ".skip";
+    if (settings.hasKey(languageSkipKey)) {
+      this.skipped = settings.getBoolean(languageSkipKey);
+    } else {
+      this.skipped = settings.getBoolean(CoreProperties.CPD_SKIP_PROPERTY);
+    }
+    this.exclusions = WildcardPattern.create(settings.getStringArray(CPD_EXCLUSIONS_KEY));
+  }
+
+  /**
+   * @return false if the duplication detection is skipped, or if the file is excluded from it
+   */
+  public boolean isDuplicationDetected(InputFile inputFile) {
+    if (skipped) {
+      return false;
+    }
+    for (WildcardPattern exclusion : exclusions) {
+      if (exclusion.match(inputFile.relativePath())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Does nothing if the duplication detection will not consume the tokens of the file.
+   *
+   * @param tokens tokens of the file, in document order
+   */
+  public void publish(InputFile inputFile, List<Tree> tokens) {
+    if (!isDuplicationDetected(inputFile)) {
+      return;
+    }
+    String[] images = new String[tokens.size()];
+    int[] lines = new int[tokens.size()];
+    for (int i = 0; i < images.length; i++) {
+      InternalSyntaxToken token = (InternalSyntaxToken) tokens.get(i);
+      images[i] = tokenImage(token);
+      lines[i] = token.line();
+    }
+    tokensByFile.put(inputFile.file().getAbsolutePath(), new FileTokens(images, lines));
+  }
+
+  /**
+   * @return the tokens published for the given file, which are removed from this store, null if none were published
+   */
+  @CheckForNull
+  public FileTokens consume(String absolutePath) {
+    return tokensByFile.remove(absolutePath);
+  }
+
+  /**
+   * Same images as the tokens of the lexer: string literals are all replaced by the same image.
+   */
+  private static String tokenImage(InternalSyntaxToken token) {
+    if (token.isEOF()) {
+      return GenericTokenType.EOF.getValue();
+    }
+    JavaScriptTree parent = ((JavaScriptTree) token).parent();
+    if (parent != null && parent.is(Kind.STRING_LITERAL)) {
+      return GenericTokenType.LITERAL.getValue();
+    }
+    return token.text();
+  }
+
+  public static class FileTokens {
+
+    private final String[] images;
+    private final int[] lines;
+
+    private FileTokens(String[] images, int[] lines) {
+      this.images = images;
+      this.lines = lines;
+    }
+
+    public int size() {
+      return images.length;
+    }
+
+    public String image(int index) {
+      return images[index];
+    }
+
+    public int line(int index) {
+      return lines[index];
+    }
+
+  }
+
+}
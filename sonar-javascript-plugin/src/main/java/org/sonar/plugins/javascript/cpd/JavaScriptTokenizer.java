@@ -21,12 +21,13 @@ package org.sonar.plugins.javascript.cpd;
 
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
-import com.sonar.sslr.impl.Lexer;
 import net.sourceforge.pmd.cpd.SourceCode;
 import net.sourceforge.pmd.cpd.TokenEntry;
 import net.sourceforge.pmd.cpd.Tokenizer;
 import net.sourceforge.pmd.cpd.Tokens;
-import org.sonar.javascript.lexer.JavaScriptLexer;
+import org.sonar.javascript.lexer.JavaScriptScanner;
+import org.sonar.javascript.tree.SourceBuffer;
+import org.sonar.plugins.javascript.cpd.JavaScriptCpdTokens.FileTokens;
 
 import java.io.File;
 import java.nio.charset.Charset;
@@ -35,16 +36,32 @@ import java.util.List;
 public class JavaScriptTokenizer implements Tokenizer {
 
   private final Charset charset;
+  private final JavaScriptCpdTokens publishedTokens;
 
   public JavaScriptTokenizer(Charset charset) {
+    this(charset, new JavaScriptCpdTokens());
+  }
+
+  public JavaScriptTokenizer(Charset charset, JavaScriptCpdTokens publishedTokens) {
     this.charset = charset;
+    this.publishedTokens = publishedTokens;
   }
 
   @Override
   public final void tokenize(SourceCode source, Tokens cpdTokens) {
-    Lexer lexer = JavaScriptLexer.create(charset);
     String fileName = source.getFileName();
-    List<Token> tokens = lexer.lex(new File(fileName));
+    FileTokens fileTokens = publishedTokens.consume(fileName);
+    if (fileTokens != null) {
+      for (int i = 0; i < fileTokens.size(); i++) {
+        cpdTokens.add(new TokenEntry(fileTokens.image(i), fileName, fileTokens.line(i)));
+      }
+      cpdTokens.add(TokenEntry.getEOF());
+      return;
+    }
+
+    // files which were not parsed by the sensor, for instance because of a parsing error
+    File file = new File(fileName);
+    List<Token> tokens = JavaScriptScanner.scan(SourceBuffer.read(file, charset).content(), file.toURI());
     for (Token token : tokens) {
       TokenEntry cpdToken = new TokenEntry(getTokenImage(token), fileName, token.getLine());
       cpdTokens.add(cpdToken);
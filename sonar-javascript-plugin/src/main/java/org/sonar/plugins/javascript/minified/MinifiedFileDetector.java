@@ -0,0 +1,85 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.minified;
+
+import javax.annotation.CheckForNull;
+
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes minified and generated files before they are parsed, from their name and from a sample of their content:
+ * <ul>
+ *   <li>files named like {@code jquery.min.js} or {@code jquery-min.js}</li>
+ *   <li>files ending with a source map comment, like bundles and transpiled files</li>
+ *   <li>files whose first characters make long lines with very few whitespaces</li>
+ * </ul>
+ */
+public final class MinifiedFileDetector {
+
+  // only the beginning and the end of the content are read, whatever the size of the file
+  private static final int SAMPLE_SIZE = 64 * 1024;
+  private static final int SOURCE_MAP_SAMPLE_SIZE = 1024;
+
+  private static final int MIN_SAMPLE_SIZE = 1024;
+  private static final int MIN_AVERAGE_LINE_LENGTH = 200;
+  private static final double MAX_WHITESPACE_RATIO = 0.05;
+
+  private static final Pattern SOURCE_MAP_COMMENT = Pattern.compile("//[#@]\\s*sourceMappingURL=");
+
+  private MinifiedFileDetector() {
+  }
+
+  /**
+   * @return why the file looks minified or generated, null if it does not
+   */
+  @CheckForNull
+  public static String detect(String fileName, String content) {
+    if (fileName.endsWith(".min.js") || fileName.endsWith("-min.js")) {
+      return "minified file name";
+    }
+
+    String end = content.substring(Math.max(0, content.length() - SOURCE_MAP_SAMPLE_SIZE));
+    if (SOURCE_MAP_COMMENT.matcher(end).find()) {
+      return "source map comment";
+    }
+
+    int sampleSize = Math.min(content.length(), SAMPLE_SIZE);
+    if (sampleSize < MIN_SAMPLE_SIZE) {
+      return null;
+    }
+    int lines = 1;
+    int whitespaces = 0;
+    for (int i = 0; i < sampleSize; i++) {
+      char c = content.charAt(i);
+      if (c == '\n') {
+        lines++;
+      }
+      if (Character.isWhitespace(c)) {
+        whitespaces++;
+      }
+    }
+    int averageLineLength = sampleSize / lines;
+    if (averageLineLength >= MIN_AVERAGE_LINE_LENGTH && whitespaces < sampleSize * MAX_WHITESPACE_RATIO) {
+      return "average line length of " + averageLineLength + " characters with " + (100 * whitespaces / sampleSize) + "% of whitespaces";
+    }
+    return null;
+  }
+
+}
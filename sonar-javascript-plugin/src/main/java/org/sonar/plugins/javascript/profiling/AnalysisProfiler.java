@@ -0,0 +1,207 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.profiling;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates wall time, number of calls and allocated bytes of the analysis phases and of each rule.
+ * Not thread-safe: a parallel analysis uses one profiler per worker, {@link #merge(AnalysisProfiler) merged} at the end.
+ * Allocated bytes are only measured on JVMs supporting thread allocated memory measurement, they are reported as -1 otherwise.
+ */
+public class AnalysisProfiler {
+
+  public static final String PARSE = "parse";
+  public static final String SYMBOL_MODEL = "symbol model";
+  public static final String TYPE_INFERENCE = "type inference";
+  public static final String METRICS = "metrics";
+  public static final String HIGHLIGHTING = "highlighting";
+
+  private static final Comparator<Entry> BY_TIME = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry e1, Entry e2) {
+      return Long.compare(e2.nanos, e1.nanos);
+    }
+  };
+
+  private final com.sun.management.ThreadMXBean threadBean;
+  private final Map<String, Entry> phases = Maps.newLinkedHashMap();
+  private final Map<String, Entry> rules = Maps.newHashMap();
+  private int files = 0;
+
+  public AnalysisProfiler() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      threadBean = (com.sun.management.ThreadMXBean) bean;
+      threadBean.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      threadBean = null;
+    }
+  }
+
+  public void fileAnalysed() {
+    files++;
+  }
+
+  public Probe startPhase(String phase) {
+    return new Probe(entry(phases, phase));
+  }
+
+  public Probe startRule(String ruleKey) {
+    return new Probe(entry(rules, ruleKey));
+  }
+
+  public void merge(AnalysisProfiler other) {
+    files += other.files;
+    merge(phases, other.phases);
+    merge(rules, other.rules);
+  }
+
+  public void logSummary(Logger log, int top) {
+    log.info("JavaScript analysis profile of " + files + " files:");
+    for (Entry phase : phases.values()) {
+      log.info("  " + phase);
+    }
+
+    List<Entry> sortedRules = sortedRules();
+    log.info("Top " + Math.min(top, sortedRules.size()) + " rules by execution time:");
+    for (Entry rule : sortedRules.subList(0, Math.min(top, sortedRules.size()))) {
+      log.info("  " + rule);
+    }
+  }
+
+  public void writeReport(File file) throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"files\": ").append(files).append(",\n");
+    json.append("  \"allocatedBytesSupported\": ").append(threadBean != null).append(",\n");
+    appendEntries(json, "phases", Lists.newArrayList(phases.values()));
+    json.append(",\n");
+    appendEntries(json, "rules", sortedRules());
+    json.append("\n}\n");
+
+    Files.createParentDirs(file);
+    Files.write(json, file, Charsets.UTF_8);
+  }
+
+  private List<Entry> sortedRules() {
+    List<Entry> sortedRules = Lists.newArrayList(rules.values());
+    Collections.sort(sortedRules, BY_TIME);
+    return sortedRules;
+  }
+
+  private static void appendEntries(StringBuilder json, String name, List<Entry> entries) {
+    json.append("  \"").append(name).append("\": [");
+    for (int i = 0; i < entries.size(); i++) {
+      Entry entry = entries.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {\"name\": \"").append(escape(entry.name))
+        .append("\", \"calls\": ").append(entry.calls)
+        .append(", \"timeMs\": ").append(TimeUnit.NANOSECONDS.toMillis(entry.nanos))
+        .append(", \"allocatedBytes\": ").append(entry.allocatedBytes)
+        .append("}");
+    }
+    json.append(entries.isEmpty() ? "]" : "\n  ]");
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private Entry entry(Map<String, Entry> entries, String name) {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      entry = new Entry(name, threadBean == null ? -1 : 0);
+      entries.put(name, entry);
+    }
+    return entry;
+  }
+
+  private void merge(Map<String, Entry> entries, Map<String, Entry> otherEntries) {
+    for (Entry other : otherEntries.values()) {
+      Entry entry = entry(entries, other.name);
+      entry.calls += other.calls;
+      entry.nanos += other.nanos;
+      if (entry.allocatedBytes >= 0 && other.allocatedBytes >= 0) {
+        entry.allocatedBytes += other.allocatedBytes;
+      }
+    }
+  }
+
+  private long allocatedBytes() {
+    return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static class Entry {
+    private final String name;
+    private int calls = 0;
+    private long nanos = 0;
+    private long allocatedBytes;
+
+    Entry(String name, long allocatedBytes) {
+      this.name = name;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return name + ": " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + calls + " calls"
+        + (allocatedBytes < 0 ? "" : (", " + (allocatedBytes / 1024) + " KB allocated"));
+    }
+  }
+
+  /**
+   * Measure of one execution, to be {@link #stop() stopped} when the execution ends.
+   */
+  public class Probe {
+    private final Entry entry;
+    private final long startBytes;
+    private final long startNanos;
+
+    private Probe(Entry entry) {
+      this.entry = entry;
+      this.startBytes = allocatedBytes();
+      this.startNanos = System.nanoTime();
+    }
+
+    public void stop() {
+      long nanos = System.nanoTime() - startNanos;
+      entry.calls++;
+      entry.nanos += nanos;
+      if (entry.allocatedBytes >= 0) {
+        entry.allocatedBytes += allocatedBytes() - startBytes;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limits the wall time and the allocated bytes spent on a single file, 0 meaning no limit.
+ * Allocated bytes are only limited on JVMs supporting thread allocated memory measurement.
+ * <p>
+ * Parsing runs on another thread, which is abandoned as soon as the budget is exceeded: the PEG parser cannot be interrupted.
+ * At most {@link #canAbandonTasks() a few} abandoned tasks may be running at once, since each of them keeps its thread busy.
+ * Visitors run on the analysing thread and are not interrupted: the budget is checked between them, and periodically during
+ * the shared walk of the subscription checks.
+ */
+public class FileBudget {
+
+  private static final long POLL_MILLIS = 100;
+  private static final int DEFAULT_MAX_ABANDONED_TASKS = 4;
+
+  // states of a task run within the budget
+  private static final int PENDING = 0;
+  private static final int RUNNING = 1;
+  private static final int COMPLETED = 2;
+  private static final int ABANDONED = 3;
+
+  private final long maxNanos;
+  private final long maxAllocatedBytes;
+  private final com.sun.management.ThreadMXBean threadBean;
+  private final int maxAbandonedTasks;
+  // abandoned tasks which are still running
+  private final AtomicInteger abandonedTasks = new AtomicInteger();
+
+  public FileBudget(long maxMillis, long maxAllocatedBytes) {
+    this(maxMillis, maxAllocatedBytes, DEFAULT_MAX_ABANDONED_TASKS);
+  }
+
+  public FileBudget(long maxMillis, long maxAllocatedBytes, int maxAbandonedTasks) {
+    this.maxAbandonedTasks = maxAbandonedTasks;
+    this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (maxAllocatedBytes > 0 && bean instanceof com.sun.management.ThreadMXBean
+      && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      threadBean = (com.sun.management.ThreadMXBean) bean;
+      threadBean.setThreadAllocatedMemoryEnabled(true);
+      this.maxAllocatedBytes = maxAllocatedBytes;
+    } else {
+      threadBean = null;
+      this.maxAllocatedBytes = 0;
+    }
+  }
+
+  public boolean isLimited() {
+    return maxNanos > 0 || maxAllocatedBytes > 0;
+  }
+
+  /**
+   * @return false if too many abandoned tasks are still running: tasks should then run on the analysing thread,
+   * and the budget is only checked once they complete
+   */
+  public boolean canAbandonTasks() {
+    return abandonedTasks.get() < maxAbandonedTasks;
+  }
+
+  /**
+   * Starts spending the budget of a file on the current thread.
+   */
+  public Account open() {
+    return new Account();
+  }
+
+  private long allocatedBytes(Thread thread) {
+    return threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(thread.getId());
+  }
+
+  public class Account {
+
+    private final long startNanos = System.nanoTime();
+    private final Thread thread = Thread.currentThread();
+    private final long startAllocatedBytes = allocatedBytes(thread);
+    // bytes allocated by other threads on behalf of this file
+    private long delegatedAllocatedBytes = 0;
+
+    private Account() {
+    }
+
+    /**
+     * @throws ExceededException if the budget of the file is spent
+     */
+    public void check(String phase) {
+      check(phase, 0);
+    }
+
+    private void check(String phase, long runningAllocatedBytes) {
+      long nanos = System.nanoTime() - startNanos;
+      if (maxNanos > 0 && nanos > maxNanos) {
+        throw new ExceededException(phase + " exceeded the time budget of " + TimeUnit.NANOSECONDS.toSeconds(maxNanos) + " s");
+      }
+      long allocatedBytes = allocatedBytes(thread) - startAllocatedBytes + delegatedAllocatedBytes + runningAllocatedBytes;
+      if (maxAllocatedBytes > 0 && allocatedBytes > maxAllocatedBytes) {
+        throw new ExceededException(phase + " exceeded the memory budget of " + (maxAllocatedBytes / (1024 * 1024)) + " MB");
+      }
+    }
+
+    /**
+     * Runs the task on the given executor, waiting for it while the budget of the file is not spent. Exceptions thrown by the task
+     * are rethrown. The task is cancelled when the budget is exceeded, but keeps running if it does not check for interruption:
+     * the executor must then no longer be used, and the task counts as abandoned until it completes.
+     *
+     * @throws ExceededException if the budget of the file is spent before the task completes, or by the task itself
+     */
+    public <T> T call(String phase, ExecutorService executor, final Callable<T> task) throws InterruptedException {
+      final AtomicReference<Thread> worker = new AtomicReference<>();
+      final AtomicLong workerStartAllocatedBytes = new AtomicLong();
+      final AtomicInteger state = new AtomicInteger(PENDING);
+      Future<T> result = executor.submit(new Callable<T>() {
+        @Override
+        public T call() throws Exception {
+          if (!state.compareAndSet(PENDING, RUNNING)) {
+            return null;
+          }
+          try {
+            workerStartAllocatedBytes.set(allocatedBytes(Thread.currentThread()));
+            worker.set(Thread.currentThread());
+            return task.call();
+          } finally {
+            if (!state.compareAndSet(RUNNING, COMPLETED)) {
+              abandonedTasks.decrementAndGet();
+            }
+          }
+        }
+      });
+
+      while (true) {
+        try {
+          T value = result.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+          delegatedAllocatedBytes += workerAllocatedBytes(worker.get(), workerStartAllocatedBytes.get());
+          check(phase);
+          return value;
+
+        } catch (TimeoutException e) {
+          try {
+            check(phase, workerAllocatedBytes(worker.get(), workerStartAllocatedBytes.get()));
+          } catch (ExceededException exceeded) {
+            result.cancel(true);
+            abandonedTasks.incrementAndGet();
+            if (state.getAndSet(ABANDONED) != RUNNING) {
+              // the task did not start, or already completed
+              abandonedTasks.decrementAndGet();
+            }
+            throw exceeded;
+          }
+
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(phase + " failed", cause);
+        }
+      }
+    }
+
+    private long workerAllocatedBytes(Thread worker, long workerStartAllocatedBytes) {
+      return worker == null ? 0 : (allocatedBytes(worker) - workerStartAllocatedBytes);
+    }
+
+  }
+
+  /**
+   * Thrown when the budget of a file is spent.
+   */
+  public static class ExceededException extends RuntimeException {
+
+    public ExceededException(String message) {
+      super(message);
+    }
+
+  }
+
+}
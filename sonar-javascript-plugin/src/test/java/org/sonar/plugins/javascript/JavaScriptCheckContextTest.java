@@ -30,6 +30,7 @@ import org.sonar.api.issue.Issuable;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.javascript.metrics.ComplexityVisitor;
+import org.sonar.javascript.tree.SourceBuffer;
 import org.sonar.javascript.tree.impl.declaration.ScriptTreeImpl;
 import org.sonar.javascript.tree.impl.lexical.InternalSyntaxToken;
 import org.sonar.plugins.javascript.api.JavaScriptCheck;
@@ -59,7 +60,7 @@ public class JavaScriptCheckContextTest {
     context = new JavaScriptCheckContext(
       new ScriptTreeImpl(null, null, null),
       issuable,
-      new File(""),
+      new SourceBuffer(new File(""), ""),
       mock(SymbolModel.class),
       new Settings(),
       javaScriptCheck,
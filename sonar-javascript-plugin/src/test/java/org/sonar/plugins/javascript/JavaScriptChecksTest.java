@@ -0,0 +1,80 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript;
+
+import org.junit.Test;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.Rule;
+import org.sonar.javascript.checks.CheckList;
+import org.sonar.plugins.javascript.api.CustomJavaScriptRulesDefinition;
+import org.sonar.plugins.javascript.api.FrontendService;
+import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaScriptChecksTest {
+
+  @Test
+  public void built_in_checks_declare_required_services() {
+    assertThat(checks(RuleKey.of(CheckList.REPOSITORY_KEY, "TabCharacter")).requiredServices()).isEmpty();
+    assertThat(checks(RuleKey.of(CheckList.REPOSITORY_KEY, "TabCharacter"), RuleKey.of(CheckList.REPOSITORY_KEY, "S2819")).requiredServices())
+      .containsOnly(FrontendService.TYPES);
+  }
+
+  @Test
+  public void custom_checks_require_all_services_by_default() {
+    assertThat(checks(RuleKey.of("custom", "key")).requiredServices()).containsOnly(FrontendService.values());
+  }
+
+  private static JavaScriptChecks checks(RuleKey... ruleKeys) {
+    ActiveRulesBuilder builder = new ActiveRulesBuilder();
+    for (RuleKey ruleKey : ruleKeys) {
+      builder.create(ruleKey).activate();
+    }
+    ActiveRules activeRules = builder.build();
+
+    return JavaScriptChecks.createJavaScriptCheck(new CheckFactory(activeRules))
+      .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
+      .addCustomChecks(new CustomJavaScriptRulesDefinition[] {new CustomJavaScriptRulesDefinition() {
+        @Override
+        public String repositoryName() {
+          return "custom";
+        }
+
+        @Override
+        public String repositoryKey() {
+          return "custom";
+        }
+
+        @Override
+        public Class[] checkClasses() {
+          return new Class[] {CustomCheck.class};
+        }
+      }});
+  }
+
+  @Rule(key = "key")
+  public static class CustomCheck extends BaseTreeVisitor {
+  }
+
+}
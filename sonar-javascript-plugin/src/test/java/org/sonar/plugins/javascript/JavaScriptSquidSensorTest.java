@@ -19,6 +19,9 @@
  */
 package org.sonar.plugins.javascript;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.batch.SensorContext;
@@ -37,6 +40,7 @@ import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.rule.RuleKey;
@@ -48,11 +52,17 @@ import org.sonar.check.RuleProperty;
 import org.sonar.javascript.checks.CheckList;
 import org.sonar.plugins.javascript.api.CustomJavaScriptRulesDefinition;
 import org.sonar.plugins.javascript.api.visitors.BaseTreeVisitor;
+import org.sonar.plugins.javascript.profiling.FileBudget;
+import org.sonar.plugins.javascript.utils.IssuableMock;
+
+import java.io.File;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -202,6 +212,211 @@ public class JavaScriptSquidSensorTest {
     verify(issuable).addIssue(any(Issue.class));
   }
 
+  @Test
+  public void should_analyse_in_parallel() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile person = inputFile("src/test/resources/cpd/Person.js");
+    DefaultInputFile parsingError = inputFile("src/test/resources/cpd/parsingError.js");
+    fileSystem.add(person);
+    fileSystem.add(parsingError);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    Resource resource = mock(Resource.class);
+    when(resource.getEffectiveKey()).thenReturn("someKey");
+    when(context.getResource(any(InputFile.class))).thenReturn(resource);
+
+    Issuable parsingErrorIssuable = new IssuableMock();
+    mockPerspectives(perspectives, person, new IssuableMock());
+    mockPerspectives(perspectives, parsingError, parsingErrorIssuable);
+
+    ActiveRules activeRules = (new ActiveRulesBuilder())
+        .create(RuleKey.of(CheckList.REPOSITORY_KEY, "ParsingError"))
+        .setName("ParsingError")
+        .activate()
+        .build();
+
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptPlugin.THREADS_KEY, 2);
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(new CheckFactory(activeRules), fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), settings, CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    verify(context).saveMeasure(eq(person), eq(CoreMetrics.NCLOC), eq(19.0));
+    assertThat(parsingErrorIssuable.issues()).hasSize(1);
+  }
+
+  @Test
+  public void minified_file_analysed_by_default() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile minified = inputFile("src/test/resources/minified/library.min.js");
+    fileSystem.add(minified);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockPerspectives(perspectives, minified, new IssuableMock());
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(checkFactory, fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), new Settings(), CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    verify(context).saveMeasure(eq(minified), eq(CoreMetrics.COMPLEXITY), any(Double.class));
+  }
+
+  @Test
+  public void minified_file_metrics_only() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile minified = inputFile("src/test/resources/minified/library.min.js");
+    fileSystem.add(minified);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockPerspectives(perspectives, minified, new IssuableMock());
+
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptPlugin.MINIFIED_FILES_KEY, JavaScriptPlugin.MINIFIED_FILES_METRICS);
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(checkFactory, fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), settings, CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    verify(context).saveMeasure(eq(minified), eq(CoreMetrics.LINES), eq(3.0));
+    verify(context).saveMeasure(eq(minified), eq(CoreMetrics.NCLOC), eq(1.0));
+    verify(context, never()).saveMeasure(any(InputFile.class), eq(CoreMetrics.COMPLEXITY), any(Double.class));
+  }
+
+  @Test
+  public void minified_file_skipped() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile minified = inputFile("src/test/resources/minified/library.min.js");
+    fileSystem.add(minified);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockPerspectives(perspectives, minified, new IssuableMock());
+
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptPlugin.MINIFIED_FILES_KEY, JavaScriptPlugin.MINIFIED_FILES_SKIP);
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(checkFactory, fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), settings, CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    verify(context, never()).saveMeasure(any(InputFile.class), any(Metric.class), any(Double.class));
+  }
+
+  @Test
+  public void known_library_metrics_only() {
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    DefaultInputFile library = inputFile("src/test/resources/libraries/library.js");
+    fileSystem.add(library);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    mockPerspectives(perspectives, library, new IssuableMock());
+
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptPlugin.KNOWN_LIBRARIES_PATH_KEY, new java.io.File("src/test/resources/libraries/known-libraries.txt").getAbsolutePath());
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(checkFactory, fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), settings, CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    verify(context).saveMeasure(eq(library), eq(CoreMetrics.LINES), eq(5.0));
+    verify(context).saveMeasure(eq(library), eq(CoreMetrics.NCLOC), eq(3.0));
+    verify(context, never()).saveMeasure(any(InputFile.class), eq(CoreMetrics.COMPLEXITY), any(Double.class));
+  }
+
+  @Test
+  public void file_budget_exceeded() throws Exception {
+    // allocated memory is not measurable on all JVMs
+    assumeTrue(new FileBudget(0, 1).isLimited());
+
+    File file = File.createTempFile("large", ".js");
+    file.deleteOnExit();
+    Files.write(Strings.repeat("var a = [1, 2, 3];\n", 20000), file, Charsets.UTF_8);
+    DefaultInputFile large = new DefaultInputFile(file.getName())
+        .setAbsolutePath(file.getAbsolutePath())
+        .setLanguage(JavaScriptLanguage.KEY)
+        .setType(Type.MAIN);
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.add(large);
+
+    SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    Issuable issuable = new IssuableMock();
+    mockPerspectives(perspectives, large, issuable);
+
+    ActiveRules activeRules = (new ActiveRulesBuilder())
+        .create(RuleKey.of(CheckList.REPOSITORY_KEY, "ParsingError"))
+        .setName("ParsingError")
+        .activate()
+        .build();
+
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptPlugin.FILE_MEMORY_BUDGET_KEY, 1);
+
+    JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(new CheckFactory(activeRules), fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), settings, CUSTOM_RULES);
+    sensor.analyse(project, context);
+
+    assertThat(issuable.issues()).hasSize(1);
+    assertThat(issuable.issues().get(0).message()).isEqualTo("Parsing exceeded the memory budget of 1 MB");
+    verify(context, never()).saveMeasure(any(InputFile.class), any(Metric.class), any(Double.class));
+  }
+
+  @Test
+  public void stack_overflow_aborts_only_the_file() throws Exception {
+    File file = File.createTempFile("nested", ".js");
+    file.deleteOnExit();
+    Files.write("x = " + Strings.repeat("[", 20000) + Strings.repeat("]", 20000) + ";\n", file, Charsets.UTF_8);
+    DefaultInputFile nested = new DefaultInputFile(file.getName())
+        .setAbsolutePath(file.getAbsolutePath())
+        .setLanguage(JavaScriptLanguage.KEY)
+        .setType(Type.MAIN);
+    DefaultFileSystem fileSystem = new DefaultFileSystem();
+    fileSystem.add(nested);
+
+    final SensorContext context = mock(SensorContext.class);
+    ResourcePerspectives perspectives = mock(ResourcePerspectives.class);
+    Issuable issuable = new IssuableMock();
+    mockPerspectives(perspectives, nested, issuable);
+
+    ActiveRules activeRules = (new ActiveRulesBuilder())
+        .create(RuleKey.of(CheckList.REPOSITORY_KEY, "ParsingError"))
+        .setName("ParsingError")
+        .activate()
+        .build();
+
+    final JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(new CheckFactory(activeRules), fileLinesContextFactory, perspectives, fileSystem, new NoSonarFilter(), new Settings(), CUSTOM_RULES);
+    // small stack, so that the overflow does not depend on the JVM defaults
+    Thread thread = new Thread(null, new Runnable() {
+      @Override
+      public void run() {
+        sensor.analyse(project, context);
+      }
+    }, "small-stack", 256 * 1024);
+    thread.start();
+    thread.join();
+
+    assertThat(issuable.issues()).hasSize(1);
+    assertThat(issuable.issues().get(0).message()).isEqualTo("The syntax tree is too deeply nested to be analysed");
+    verify(context, never()).saveMeasure(any(InputFile.class), any(Metric.class), any(Double.class));
+  }
+
+  private static DefaultInputFile inputFile(String relativePath) {
+    return new DefaultInputFile(relativePath)
+        .setAbsolutePath((new java.io.File(relativePath)).getAbsolutePath())
+        .setLanguage(JavaScriptLanguage.KEY)
+        .setType(Type.MAIN);
+  }
+
+  private static void mockPerspectives(ResourcePerspectives perspectives, InputFile inputFile, Issuable issuable) {
+    Highlightable highlightable = mock(Highlightable.class);
+    Symbolizable symbolizable = mock(Symbolizable.class);
+    when(highlightable.newHighlighting()).thenReturn(mock(Highlightable.HighlightingBuilder.class));
+    when(symbolizable.newSymbolTableBuilder()).thenReturn(mock(SymbolTableBuilder.class));
+
+    when(perspectives.as(Highlightable.class, inputFile)).thenReturn(highlightable);
+    when(perspectives.as(Symbolizable.class, inputFile)).thenReturn(symbolizable);
+    when(perspectives.as(Issuable.class, inputFile)).thenReturn(issuable);
+  }
+
   @Test
   public void test_to_string() {
     JavaScriptSquidSensor sensor = new JavaScriptSquidSensor(
@@ -0,0 +1,156 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.source.Highlightable.HighlightingBuilder;
+import org.sonar.javascript.checks.CheckList;
+import org.sonar.plugins.javascript.JavaScriptChecks;
+import org.sonar.plugins.javascript.JavaScriptPlugin;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AnalysisCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final String PATH = "src/file.js";
+  private static final String SOURCE = "var a = 1;";
+
+  private File cacheDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDirectory = new File(temp.getRoot(), "cache");
+  }
+
+  @Test
+  public void file_key_depends_on_path_content_and_analysis_key() throws Exception {
+    AnalysisCache cache = new AnalysisCache(cacheDirectory, "key");
+    String fileKey = cache.fileKey(PATH, SOURCE);
+
+    assertThat(cache.fileKey(PATH, SOURCE)).isEqualTo(fileKey);
+    assertThat(new AnalysisCache(cacheDirectory, "other key").fileKey(PATH, SOURCE)).isNotEqualTo(fileKey);
+    assertThat(cache.fileKey(PATH, "var a = 2;")).isNotEqualTo(fileKey);
+    assertThat(cache.fileKey("src/copy.js", SOURCE)).isNotEqualTo(fileKey);
+  }
+
+  @Test
+  public void save_and_load() throws Exception {
+    AnalysisCache cache = new AnalysisCache(cacheDirectory, "key");
+    String fileKey = cache.fileKey(PATH, SOURCE);
+    assertThat(cache.load(fileKey)).isNull();
+
+    FileAnalysisRecord record = new FileAnalysisRecord();
+    record.addMeasure(CoreMetrics.NCLOC, 1);
+    record.setLinesData(1, ImmutableSet.of(1), ImmutableSet.<Integer>of());
+    record.addHighlighting(0, 3, "k");
+    cache.save(fileKey, record);
+
+    FileAnalysisRecord loaded = cache.load(fileKey);
+    assertThat(loaded).isNotNull();
+    assertThat(loaded.hasLinesData()).isTrue();
+
+    SensorContext context = mock(SensorContext.class);
+    InputFile inputFile = mock(InputFile.class);
+    loaded.replayMeasures(context, inputFile);
+    verify(context).saveMeasure(inputFile, CoreMetrics.NCLOC, 1.0);
+
+    HighlightingBuilder highlighting = mock(HighlightingBuilder.class);
+    loaded.replayHighlighting(highlighting);
+    verify(highlighting).highlight(0, 3, "k");
+    verify(highlighting).done();
+  }
+
+  @Test
+  public void unreadable_entry_is_a_miss() throws Exception {
+    AnalysisCache cache = new AnalysisCache(cacheDirectory, "key");
+    String fileKey = cache.fileKey(PATH, SOURCE);
+    cacheDirectory.mkdirs();
+    Files.write("corrupted", new File(cacheDirectory, fileKey + ".record"), Charsets.UTF_8);
+
+    assertThat(cache.load(fileKey)).isNull();
+  }
+
+  @Test
+  public void analysis_key_only_depends_on_settings_changing_the_analysis() throws Exception {
+    JavaScriptChecks checks = JavaScriptChecks.createJavaScriptCheck(new CheckFactory(new ActiveRulesBuilder().build()))
+      .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks());
+    Settings settings = new Settings();
+    String analysisKey = AnalysisCache.analysisKey(settings, Charsets.UTF_8, checks);
+
+    settings.setProperty(JavaScriptPlugin.THREADS_KEY, 4);
+    settings.setProperty(JavaScriptPlugin.CACHE_PATH_KEY, "other/cache");
+    assertThat(AnalysisCache.analysisKey(settings, Charsets.UTF_8, checks)).isEqualTo(analysisKey);
+
+    settings.setProperty(JavaScriptPlugin.JQUERY_OBJECT_ALIASES, "jq");
+    assertThat(AnalysisCache.analysisKey(settings, Charsets.UTF_8, checks)).isNotEqualTo(analysisKey);
+  }
+
+  @Test
+  public void unused_entries_are_evicted() throws Exception {
+    AnalysisCache previousCache = new AnalysisCache(cacheDirectory, "key");
+    String usedKey = previousCache.fileKey(PATH, SOURCE);
+    String unusedKey = previousCache.fileKey(PATH, "var a = 2;");
+    previousCache.save(usedKey, new FileAnalysisRecord());
+    previousCache.save(unusedKey, new FileAnalysisRecord());
+
+    AnalysisCache cache = new AnalysisCache(cacheDirectory, "key");
+    assertThat(cache.load(usedKey)).isNotNull();
+    cache.evictUnused();
+
+    assertThat(new File(cacheDirectory, usedKey + ".record")).exists();
+    assertThat(new File(cacheDirectory, unusedKey + ".record")).doesNotExist();
+  }
+
+  @Test
+  public void modules_do_not_evict_each_other_entries() throws Exception {
+    File moduleDirectory = AnalysisCache.moduleDirectory(cacheDirectory, "project:module");
+    File otherModuleDirectory = AnalysisCache.moduleDirectory(cacheDirectory, "project:other-module");
+    assertThat(moduleDirectory.getParentFile()).isEqualTo(cacheDirectory);
+    assertThat(moduleDirectory).isNotEqualTo(otherModuleDirectory);
+    assertThat(AnalysisCache.moduleDirectory(cacheDirectory, "project:module")).isEqualTo(moduleDirectory);
+
+    AnalysisCache otherModuleCache = new AnalysisCache(otherModuleDirectory, "key");
+    String otherModuleKey = otherModuleCache.fileKey(PATH, SOURCE);
+    otherModuleCache.save(otherModuleKey, new FileAnalysisRecord());
+
+    new AnalysisCache(moduleDirectory, "key").evictUnused();
+    assertThat(new AnalysisCache(otherModuleDirectory, "key").load(otherModuleKey)).isNotNull();
+  }
+
+}
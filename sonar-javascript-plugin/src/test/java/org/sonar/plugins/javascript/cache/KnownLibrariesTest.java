@@ -0,0 +1,81 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.security.MessageDigest;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class KnownLibrariesTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final File LIBRARY = new File("src/test/resources/libraries/library.js");
+  private static final File LIBRARIES = new File("src/test/resources/libraries/known-libraries.txt");
+
+  @Test
+  public void user_libraries() throws Exception {
+    KnownLibraries libraries = KnownLibraries.load(LIBRARIES);
+    assertThat(libraries.hasLibraryOfSize(LIBRARY.length())).isTrue();
+    assertThat(find(libraries, Files.toByteArray(LIBRARY))).isEqualTo("Library 2.0");
+  }
+
+  @Test
+  public void other_size() {
+    KnownLibraries libraries = KnownLibraries.load(LIBRARIES);
+    assertThat(libraries.hasLibraryOfSize(LIBRARY.length() + 1)).isFalse();
+    assertThat(find(libraries, new byte[0])).isNull();
+  }
+
+  @Test
+  public void same_size_other_content() throws Exception {
+    KnownLibraries libraries = KnownLibraries.load(LIBRARIES);
+    byte[] content = Files.toString(LIBRARY, Charsets.UTF_8).replace("2.0", "2.1").getBytes(Charsets.UTF_8);
+
+    assertThat(libraries.hasLibraryOfSize(content.length)).isTrue();
+    assertThat(find(libraries, content)).isNull();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void missing_libraries_file() {
+    KnownLibraries.load(new File(temp.getRoot(), "missing.txt"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void invalid_fingerprint() {
+    new KnownLibraries().add(ImmutableList.of("# comment", "", "not-a-sha1 12 Library"), "libraries.txt");
+  }
+
+  private static String find(KnownLibraries libraries, byte[] content) {
+    MessageDigest digest = libraries.newDigest();
+    digest.update(content);
+    return libraries.find(content.length, digest);
+  }
+
+}
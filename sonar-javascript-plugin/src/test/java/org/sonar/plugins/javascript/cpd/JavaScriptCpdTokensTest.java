@@ -0,0 +1,89 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.cpd;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.Settings;
+import org.sonar.javascript.parser.JavaScriptParserBuilder;
+import org.sonar.javascript.tree.TreeKindIndex;
+import org.sonar.plugins.javascript.api.tree.Tree;
+
+import java.io.File;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JavaScriptCpdTokensTest {
+
+  private static final File FILE = new File("src/test/resources/cpd/Person.js");
+
+  private final DefaultInputFile inputFile = new DefaultInputFile("src/test/resources/cpd/Person.js").setAbsolutePath(FILE.getAbsolutePath());
+
+  @Test
+  public void published_by_default() {
+    JavaScriptCpdTokens cpdTokens = new JavaScriptCpdTokens(new Settings());
+    assertThat(cpdTokens.isDuplicationDetected(inputFile)).isTrue();
+
+    cpdTokens.publish(inputFile, tokens());
+    assertThat(cpdTokens.consume(FILE.getAbsolutePath())).isNotNull();
+  }
+
+  @Test
+  public void not_published_when_duplication_detection_skipped() {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.CPD_SKIP_PROPERTY, true);
+    assertNotPublished(new JavaScriptCpdTokens(settings));
+  }
+
+  @Test
+  public void language_skip_property_overrides_global_one() {
+    Settings settings = new Settings();
+    settings.setProperty(CoreProperties.CPD_SKIP_PROPERTY, true);
+    settings.setProperty("sonar.cpd.js.skip", false);
+    assertThat(new JavaScriptCpdTokens(settings).isDuplicationDetected(inputFile)).isTrue();
+
+    settings = new Settings();
+    settings.setProperty("sonar.cpd.js.skip", true);
+    assertNotPublished(new JavaScriptCpdTokens(settings));
+  }
+
+  @Test
+  public void not_published_when_file_excluded_from_duplication_detection() {
+    Settings settings = new Settings();
+    settings.setProperty(JavaScriptCpdTokens.CPD_EXCLUSIONS_KEY, "foo/**, **/cpd/*.js");
+    assertNotPublished(new JavaScriptCpdTokens(settings));
+  }
+
+  private void assertNotPublished(JavaScriptCpdTokens cpdTokens) {
+    assertThat(cpdTokens.isDuplicationDetected(inputFile)).isFalse();
+
+    cpdTokens.publish(inputFile, tokens());
+    assertThat(cpdTokens.consume(FILE.getAbsolutePath())).isNull();
+  }
+
+  private static List<Tree> tokens() {
+    Tree tree = JavaScriptParserBuilder.createParser(Charsets.UTF_8).parse(FILE);
+    return new TreeKindIndex(tree).nodes(Tree.Kind.TOKEN);
+  }
+
+}
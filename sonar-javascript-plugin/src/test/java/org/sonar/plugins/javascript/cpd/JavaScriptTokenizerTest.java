@@ -19,10 +19,15 @@
  */
 package org.sonar.plugins.javascript.cpd;
 
+import com.google.common.base.Charsets;
 import net.sourceforge.pmd.cpd.SourceCode;
 import net.sourceforge.pmd.cpd.TokenEntry;
 import net.sourceforge.pmd.cpd.Tokens;
 import org.junit.Test;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.javascript.parser.JavaScriptParserBuilder;
+import org.sonar.javascript.tree.TreeKindIndex;
+import org.sonar.plugins.javascript.api.tree.Tree;
 
 import java.io.File;
 import java.nio.charset.Charset;
@@ -44,4 +49,31 @@ public class JavaScriptTokenizerTest {
     assertThat(tokens.getTokens().get(tokens.size() - 1)).isEqualTo(TokenEntry.getEOF());
   }
 
+  @Test
+  public void published_tokens_same_as_lexer_tokens() throws Exception {
+    File file = new File("src/test/resources/cpd/Person.js");
+    SourceCode source = mock(SourceCode.class);
+    when(source.getFileName()).thenReturn(file.getAbsolutePath());
+
+    Tokens lexedTokens = new Tokens();
+    new JavaScriptTokenizer(Charsets.UTF_8).tokenize(source, lexedTokens);
+
+    JavaScriptCpdTokens publishedTokens = new JavaScriptCpdTokens();
+    Tree tree = JavaScriptParserBuilder.createParser(Charsets.UTF_8).parse(file);
+    DefaultInputFile inputFile = new DefaultInputFile("src/test/resources/cpd/Person.js").setAbsolutePath(file.getAbsolutePath());
+    publishedTokens.publish(inputFile, new TreeKindIndex(tree).nodes(Tree.Kind.TOKEN));
+    Tokens parsedTokens = new Tokens();
+    new JavaScriptTokenizer(Charsets.UTF_8, publishedTokens).tokenize(source, parsedTokens);
+
+    assertThat(parsedTokens.size()).isEqualTo(lexedTokens.size());
+    for (int i = 0; i < lexedTokens.size(); i++) {
+      TokenEntry lexed = lexedTokens.getTokens().get(i);
+      TokenEntry parsed = parsedTokens.getTokens().get(i);
+      assertThat(parsed.getIdentifier()).isEqualTo(lexed.getIdentifier());
+      assertThat(parsed.getBeginLine()).isEqualTo(lexed.getBeginLine());
+    }
+    // published tokens are consumed
+    assertThat(publishedTokens.consume(file.getAbsolutePath())).isNull();
+  }
+
 }
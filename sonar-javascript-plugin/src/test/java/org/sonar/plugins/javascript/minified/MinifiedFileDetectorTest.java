@@ -0,0 +1,57 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.minified;
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MinifiedFileDetectorTest {
+
+  private static final String STATEMENT = "var a = b + c;\n";
+
+  @Test
+  public void minified_file_name() {
+    assertThat(MinifiedFileDetector.detect("jquery.min.js", STATEMENT)).isEqualTo("minified file name");
+    assertThat(MinifiedFileDetector.detect("jquery-min.js", STATEMENT)).isEqualTo("minified file name");
+    assertThat(MinifiedFileDetector.detect("admin.js", STATEMENT)).isNull();
+  }
+
+  @Test
+  public void source_map_comment() {
+    assertThat(MinifiedFileDetector.detect("bundle.js", STATEMENT + "//# sourceMappingURL=bundle.js.map\n")).isEqualTo("source map comment");
+    assertThat(MinifiedFileDetector.detect("bundle.js", STATEMENT + "//@ sourceMappingURL=bundle.js.map")).isEqualTo("source map comment");
+  }
+
+  @Test
+  public void long_lines_without_whitespaces() {
+    String minified = Strings.repeat("a=b+c;", 1000);
+    assertThat(MinifiedFileDetector.detect("bundle.js", minified)).startsWith("average line length of 6000 characters");
+
+    // long lines of text
+    assertThat(MinifiedFileDetector.detect("translations.js", Strings.repeat("a b c ", 1000))).isNull();
+    // usual code
+    assertThat(MinifiedFileDetector.detect("admin.js", Strings.repeat(STATEMENT, 1000))).isNull();
+    // small file
+    assertThat(MinifiedFileDetector.detect("admin.js", "a=b+c;")).isNull();
+  }
+
+}
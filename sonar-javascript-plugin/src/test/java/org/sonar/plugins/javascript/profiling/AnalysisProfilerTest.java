@@ -0,0 +1,88 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.profiling;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import java.io.File;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AnalysisProfilerTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void report() throws Exception {
+    AnalysisProfiler profiler = new AnalysisProfiler();
+    profiler.startPhase(AnalysisProfiler.PARSE).stop();
+    profiler.startRule("javascript:S1").stop();
+    profiler.fileAnalysed();
+
+    AnalysisProfiler other = new AnalysisProfiler();
+    other.startPhase(AnalysisProfiler.PARSE).stop();
+    other.startRule("javascript:S1").stop();
+    other.startRule("custom:\"quoted\"").stop();
+    other.fileAnalysed();
+    profiler.merge(other);
+
+    File file = new File(temporaryFolder.getRoot(), "profile/report.json");
+    profiler.writeReport(file);
+
+    String report = Files.toString(file, Charsets.UTF_8);
+    assertThat(report).contains("\"files\": 2");
+    assertThat(report).contains("{\"name\": \"parse\", \"calls\": 2");
+    assertThat(report).contains("{\"name\": \"javascript:S1\", \"calls\": 2");
+    assertThat(report).contains("{\"name\": \"custom:\\\"quoted\\\"\", \"calls\": 1");
+  }
+
+  @Test
+  public void empty_report() throws Exception {
+    File file = temporaryFolder.newFile();
+    new AnalysisProfiler().writeReport(file);
+
+    assertThat(Files.toString(file, Charsets.UTF_8)).contains("\"phases\": []").contains("\"rules\": []");
+  }
+
+  @Test
+  public void log_top_rules() {
+    AnalysisProfiler profiler = new AnalysisProfiler();
+    profiler.startRule("javascript:S1").stop();
+    profiler.startRule("javascript:S2").stop();
+
+    Logger log = mock(Logger.class);
+    profiler.logSummary(log, 1);
+
+    verify(log).info("Top 1 rules by execution time:");
+    // header, rules header and a single rule
+    verify(log, times(3)).info(anyString());
+  }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011 SonarSource and Eriks Nukis
+ * sonarqube@googlegroups.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.javascript.profiling;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FileBudgetTest {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void unlimited() throws Exception {
+    FileBudget budget = new FileBudget(0, 0);
+    assertThat(budget.isLimited()).isFalse();
+
+    FileBudget.Account account = budget.open();
+    assertThat(account.call("Parsing", executor, sleep(10))).isEqualTo("done");
+    account.check("Analysis");
+  }
+
+  @Test
+  public void task_within_budget() throws Exception {
+    FileBudget budget = new FileBudget(60000, 0);
+    assertThat(budget.isLimited()).isTrue();
+    assertThat(budget.open().call("Parsing", executor, sleep(10))).isEqualTo("done");
+  }
+
+  @Test
+  public void task_exceeding_time_budget() throws Exception {
+    FileBudget.Account account = new FileBudget(50, 0).open();
+    try {
+      account.call("Parsing", executor, sleep(60000));
+      throw new AssertionError("budget should be exceeded");
+    } catch (FileBudget.ExceededException e) {
+      assertThat(e.getMessage()).startsWith("Parsing exceeded the time budget");
+    }
+  }
+
+  @Test
+  public void abandoned_tasks_are_limited() throws Exception {
+    FileBudget budget = new FileBudget(50, 0, 1);
+    assertThat(budget.canAbandonTasks()).isTrue();
+
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      budget.open().call("Parsing", executor, new Callable<String>() {
+        @Override
+        public String call() {
+          // not interruptible, as the parser
+          while (release.getCount() > 0) {
+            Thread.yield();
+          }
+          return "done";
+        }
+      });
+      throw new AssertionError("budget should be exceeded");
+    } catch (FileBudget.ExceededException e) {
+      assertThat(budget.canAbandonTasks()).isFalse();
+    }
+
+    release.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    assertThat(budget.canAbandonTasks()).isTrue();
+  }
+
+  @Test
+  public void completed_tasks_are_not_abandoned() throws Exception {
+    FileBudget budget = new FileBudget(60000, 0, 1);
+    budget.open().call("Parsing", executor, sleep(10));
+    assertThat(budget.canAbandonTasks()).isTrue();
+  }
+
+  @Test
+  public void check_exceeding_time_budget() throws Exception {
+    FileBudget.Account account = new FileBudget(1, 0).open();
+    Thread.sleep(10);
+    try {
+      account.check("Analysis");
+      throw new AssertionError("budget should be exceeded");
+    } catch (FileBudget.ExceededException e) {
+      assertThat(e.getMessage()).startsWith("Analysis exceeded the time budget");
+    }
+  }
+
+  @Test
+  public void task_exceeding_memory_budget() throws Exception {
+    FileBudget budget = new FileBudget(0, 1024 * 1024);
+    // allocated memory is not measurable on all JVMs
+    if (!budget.isLimited()) {
+      return;
+    }
+    Callable<Integer> allocate = new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        int total = 0;
+        for (int i = 0; i < 1000; i++) {
+          total += new byte[64 * 1024].length;
+          Thread.sleep(1);
+        }
+        return total;
+      }
+    };
+    try {
+      budget.open().call("Parsing", executor, allocate);
+      throw new AssertionError("budget should be exceeded");
+    } catch (FileBudget.ExceededException e) {
+      assertThat(e.getMessage()).isEqualTo("Parsing exceeded the memory budget of 1 MB");
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void task_exception() throws Exception {
+    new FileBudget(60000, 0).open().call("Parsing", executor, new Callable<String>() {
+      @Override
+      public String call() {
+        throw new IllegalArgumentException();
+      }
+    });
+  }
+
+  private static Callable<String> sleep(final long millis) {
+    return new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        Thread.sleep(millis);
+        return "done";
+      }
+    };
+  }
+
+}
@@ -0,0 +1,4 @@
+/*! library v2.0 | MIT */
+(function (root) {
+  root.library = { version: "2.0" };
+})(this);
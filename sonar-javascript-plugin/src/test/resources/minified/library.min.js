@@ -0,0 +1,2 @@
+/*! library v1.0 */
+!function(a){"use strict";var b=function(c){return c*2};a.library={double:b}}(window);